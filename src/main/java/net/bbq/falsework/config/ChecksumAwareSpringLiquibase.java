@@ -0,0 +1,135 @@
+package net.bbq.falsework.config;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+
+/**
+ * 按变更日志摘要决定启动时如何执行 Liquibase。
+ * 摘要覆盖主变更日志所在目录下的全部文件以及 contexts/labels，每次成功升级后以
+ * "checksum-{sha256}" 写入 DATABASECHANGELOG 最后一行的 TAG 列。
+ * <ul>
+ *     <li>SYNC：与默认行为一致，同步执行升级</li>
+ *     <li>SKIP_IF_UNCHANGED：最新标签与当前摘要一致时只做一次查询，不加载 Liquibase 的变更日志解析和锁</li>
+ *     <li>ASYNC：在后台线程执行升级，启动不等待；只适用于新版本代码兼容旧表结构的发布</li>
+ * </ul>
+ */
+@Slf4j
+public class ChecksumAwareSpringLiquibase extends SpringLiquibase {
+
+    public enum Mode {
+        SYNC, ASYNC, SKIP_IF_UNCHANGED
+    }
+
+    private static final String TAG_PREFIX = "checksum-";
+
+    private final Mode mode;
+
+    public ChecksumAwareSpringLiquibase(Mode mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        String tag = TAG_PREFIX + checksum();
+        switch (mode) {
+            case SKIP_IF_UNCHANGED -> {
+                if (tag.equals(latestTag())) {
+                    log.info("Liquibase changelog unchanged ({}), skipping update", tag);
+                    return;
+                }
+                update(tag);
+            }
+            case ASYNC -> Thread.ofPlatform().name("liquibase-async").daemon().start(() -> {
+                try {
+                    update(tag);
+                } catch (Exception e) {
+                    log.error("Asynchronous Liquibase update failed", e);
+                }
+            });
+            default -> update(tag);
+        }
+    }
+
+    private void update(String tag) throws LiquibaseException {
+        long start = System.currentTimeMillis();
+        super.afterPropertiesSet();
+        tagLatest(tag);
+        log.info("Liquibase update finished in {} ms ({})", System.currentTimeMillis() - start, tag);
+    }
+
+    private String checksum() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ResourcePatternResolver resolver = ResourcePatternUtils.getResourcePatternResolver(getResourceLoader());
+            String changeLog = getChangeLog();
+            String directory = changeLog.substring(0, changeLog.lastIndexOf('/') + 1);
+            Resource[] resources = resolver.getResources(directory + "**/*");
+            Arrays.sort(resources, Comparator.comparing(Resource::getDescription));
+            for (Resource resource : resources) {
+                if (!resource.isReadable()) {
+                    continue;
+                }
+                digest.update(resource.getFilename().getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = resource.getInputStream()) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+            digest.update(String.valueOf(getContexts()).getBytes(StandardCharsets.UTF_8));
+            digest.update(String.valueOf(getLabelFilter()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to compute changelog checksum", e);
+        }
+    }
+
+    /**
+     * 最近一次执行的变更集上的标签；表不存在（首次部署）时返回 null
+     */
+    private String latestTag() {
+        String sql = "SELECT tag FROM " + changeLogTable() + " ORDER BY orderexecuted DESC LIMIT 1";
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getString(1) : null;
+        } catch (SQLException e) {
+            log.debug("Could not read latest Liquibase tag: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void tagLatest(String tag) {
+        String table = changeLogTable();
+        String sql = "UPDATE " + table + " SET tag = ? WHERE orderexecuted = (SELECT MAX(orderexecuted) FROM " + table + ")";
+        try (Connection connection = getDataSource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tag);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            // 标签只影响下次启动能否跳过，失败时下次照常执行升级
+            log.warn("Failed to tag Liquibase changelog checksum: {}", e.getMessage());
+        }
+    }
+
+    private String changeLogTable() {
+        String table = getDatabaseChangeLogTable() != null ? getDatabaseChangeLogTable() : "databasechangelog";
+        String schema = getLiquibaseSchema() != null ? getLiquibaseSchema() : getDefaultSchema();
+        return schema != null ? schema + "." + table : table;
+    }
+}
@@ -0,0 +1,70 @@
+package net.bbq.falsework.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import net.bbq.falsework.dto.CommonResult;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CommonResult 专用序列化器：字段名和常用消息以 SerializedString 预编码，
+ * 输出时直接写入已转义的 UTF-8 字节；data 交给 Jackson 按运行时类型流式序列化。
+ * 输出与反射序列化一致：{"code":..,"message":..,"data":..}
+ */
+public class CommonResultSerializer extends StdSerializer<CommonResult<?>> {
+
+    private static final SerializedString CODE = new SerializedString("code");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString DATA = new SerializedString("data");
+
+    /** 消息缓存上限，异常消息等动态文本超出后不再缓存 */
+    private static final int MAX_CACHED_MESSAGES = 256;
+
+    private final Map<String, SerializableString> messages = new ConcurrentHashMap<>();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CommonResultSerializer() {
+        super((Class<CommonResult<?>>) (Class) CommonResult.class);
+    }
+
+    @Override
+    public void serialize(CommonResult<?> result, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(result);
+
+        gen.writeFieldName(CODE);
+        if (result.getCode() != null) {
+            gen.writeNumber(result.getCode());
+        } else {
+            gen.writeNull();
+        }
+
+        gen.writeFieldName(MESSAGE);
+        if (result.getMessage() != null) {
+            gen.writeString(message(result.getMessage()));
+        } else {
+            gen.writeNull();
+        }
+
+        gen.writeFieldName(DATA);
+        provider.defaultSerializeValue(result.getData(), gen);
+
+        gen.writeEndObject();
+    }
+
+    private SerializableString message(String message) {
+        SerializableString cached = messages.get(message);
+        if (cached != null) {
+            return cached;
+        }
+        SerializedString encoded = new SerializedString(message);
+        if (messages.size() < MAX_CACHED_MESSAGES) {
+            messages.putIfAbsent(message, encoded);
+        }
+        return encoded;
+    }
+}
@@ -0,0 +1,60 @@
+package net.bbq.falsework.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.bbq.falsework.security.ConcurrencyLimitFilter;
+import net.bbq.falsework.util.VegasLimit;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * 自适应并发限制。每个路由分组一个 VegasLimit，配置项：
+ * concurrency-limit.&lt;group&gt;.initial-limit / min-limit / max-limit，group 为 auth、users、docs、default。
+ * 过滤器排在 Spring Security 过滤器链（SecurityProperties.DEFAULT_FILTER_ORDER）之前。
+ */
+@Configuration
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    private static final String PROPERTY_PREFIX = "concurrency-limit.";
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(Environment environment,
+                                                                                 MeterRegistry meterRegistry) {
+        List<ConcurrencyLimitFilter.RouteGroup> groups = List.of(
+                // 登录、注册包含 BCrypt 计算，上限偏低
+                group("auth", List.of("/api/auth/"), 20, environment, meterRegistry),
+                group("users", List.of("/api/users"), 50, environment, meterRegistry),
+                group("docs", List.of("/doc.html", "/swagger-ui/", "/v3/api-docs", "/swagger-resources",
+                        "/webjars/"), 5, environment, meterRegistry)
+        );
+        VegasLimit defaultLimit = limit("default", 50, environment, meterRegistry);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(groups, defaultLimit));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        registration.addUrlPatterns("/*");
+        return registration;
+    }
+
+    private static ConcurrencyLimitFilter.RouteGroup group(String name, List<String> pathPrefixes, int initialLimit,
+                                                           Environment environment, MeterRegistry meterRegistry) {
+        return new ConcurrencyLimitFilter.RouteGroup(name, pathPrefixes,
+                limit(name, initialLimit, environment, meterRegistry));
+    }
+
+    private static VegasLimit limit(String name, int initialLimit, Environment environment,
+                                    MeterRegistry meterRegistry) {
+        String prefix = PROPERTY_PREFIX + name + ".";
+        return new VegasLimit(name,
+                environment.getProperty(prefix + "initial-limit", Integer.class, initialLimit),
+                environment.getProperty(prefix + "min-limit", Integer.class, Math.max(1, initialLimit / 5)),
+                environment.getProperty(prefix + "max-limit", Integer.class, initialLimit * 10),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,58 @@
+package net.bbq.falsework.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.type.MethodMetadata;
+
+import java.util.List;
+
+/**
+ * fast-start 配置：接口文档相关的 Bean 延迟到首次访问文档时再创建，
+ * 业务 Bean 仍然在启动时初始化，配置错误不会被推迟到第一次请求才暴露。
+ */
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+    private static final List<String> LAZY_PACKAGES = List.of(
+            "org.springdoc.",
+            "com.github.xiaoymin.knife4j.",
+            OpenApiConfig.class.getName()
+    );
+
+    @Bean
+    public static BeanFactoryPostProcessor docBeansLazyInitPostProcessor() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (isDocBean(definition)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isDocBean(BeanDefinition definition) {
+        String className = definition.getBeanClassName();
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            // @Bean 方法定义的 Bean 没有类名，按声明它的配置类判断
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                className = factoryMethod.getDeclaringClassName();
+            }
+        }
+        if (className == null) {
+            return false;
+        }
+        for (String prefix : LAZY_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
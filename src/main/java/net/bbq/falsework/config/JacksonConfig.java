@@ -0,0 +1,31 @@
+package net.bbq.falsework.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.NativeDetector;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Jackson 配置：Module 类型的 Bean 会被 Spring Boot 注册到全局 ObjectMapper
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Blackbird 用 LambdaMetafactory 生成的访问器替代反射读写属性。
+     * native image 不能在运行时生成类，此时退回 Jackson 默认的反射访问
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return NativeDetector.inNativeImage() ? new SimpleModule("BlackbirdDisabled") : new BlackbirdModule();
+    }
+
+    @Bean
+    public Module commonResultModule() {
+        SimpleModule module = new SimpleModule("CommonResultModule");
+        module.addSerializer(new CommonResultSerializer());
+        return module;
+    }
+}
@@ -0,0 +1,50 @@
+package net.bbq.falsework.config;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+
+/**
+ * liquibase.startup-mode 不为 sync 时，用 ChecksumAwareSpringLiquibase 替换 Spring Boot 自动配置的 SpringLiquibase。
+ * 仍然读取 spring.liquibase.* 配置，sync（默认）时不生效，保持自动配置原样。
+ */
+@Configuration
+@EnableConfigurationProperties(LiquibaseProperties.class)
+@ConditionalOnProperty(prefix = "spring.liquibase", name = "enabled", matchIfMissing = true)
+@ConditionalOnExpression("'${liquibase.startup-mode:sync}' != 'sync'")
+public class LiquibaseStartupConfig {
+
+    @Value("${liquibase.startup-mode:sync}")
+    private String startupMode;
+
+    @Bean
+    public SpringLiquibase liquibase(DataSource dataSource, LiquibaseProperties properties) {
+        ChecksumAwareSpringLiquibase liquibase = new ChecksumAwareSpringLiquibase(
+                ChecksumAwareSpringLiquibase.Mode.valueOf(startupMode.replace('-', '_').toUpperCase(Locale.ROOT)));
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog(properties.getChangeLog());
+        if (properties.getContexts() != null) {
+            liquibase.setContexts(String.join(",", properties.getContexts()));
+        }
+        if (properties.getLabelFilter() != null) {
+            liquibase.setLabelFilter(String.join(",", properties.getLabelFilter()));
+        }
+        liquibase.setDefaultSchema(properties.getDefaultSchema());
+        liquibase.setLiquibaseSchema(properties.getLiquibaseSchema());
+        liquibase.setLiquibaseTablespace(properties.getLiquibaseTablespace());
+        liquibase.setDatabaseChangeLogTable(properties.getDatabaseChangeLogTable());
+        liquibase.setDatabaseChangeLogLockTable(properties.getDatabaseChangeLogLockTable());
+        liquibase.setDropFirst(properties.isDropFirst());
+        liquibase.setClearCheckSums(properties.isClearChecksums());
+        liquibase.setChangeLogParameters(properties.getParameters());
+        return liquibase;
+    }
+}
@@ -0,0 +1,92 @@
+package net.bbq.falsework.config;
+
+import org.mybatis.spring.mapper.MapperFactoryBean;
+import org.mybatis.spring.mapper.MapperScannerConfigurer;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+/**
+ * MyBatis 在 AOT 模式（fast-start、native）下的支持，mybatis-spring 3.0 本身没有提供：
+ * 1. Mapper 的 Bean 定义已在构建期生成，运行时不能再执行 MapperScannerConfigurer 扫描，
+ *    否则会与生成的定义冲突（ConflictingBeanDefinitionException）
+ * 2. MapperFactoryBean 的泛型参数在生成的定义中丢失，需要补上目标类型，才能按 Mapper 接口注入
+ */
+@Configuration(proxyBeanMethods = false)
+public class MybatisAotConfig {
+
+    @Bean
+    public static MapperScannerAotExcludeFilter mapperScannerAotExcludeFilter() {
+        return new MapperScannerAotExcludeFilter();
+    }
+
+    @Bean
+    public static MapperFactoryBeanTypePostProcessor mapperFactoryBeanTypePostProcessor() {
+        return new MapperFactoryBeanTypePostProcessor();
+    }
+
+    /**
+     * 以 Bean 形式注册的排除过滤器必须同时实现一个 AOT 处理器接口，这里不需要额外生成代码
+     */
+    static class MapperScannerAotExcludeFilter implements BeanRegistrationExcludeFilter, BeanFactoryInitializationAotProcessor {
+
+        @Override
+        public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+            return MapperScannerConfigurer.class.equals(registeredBean.getBeanClass());
+        }
+
+        @Override
+        public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+            return null;
+        }
+    }
+
+    static class MapperFactoryBeanTypePostProcessor implements MergedBeanDefinitionPostProcessor, PriorityOrdered {
+
+        @Override
+        public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+            if (!MapperFactoryBean.class.isAssignableFrom(beanType)
+                    || !beanDefinition.getResolvableType().hasUnresolvableGenerics()) {
+                return;
+            }
+            Class<?> mapperInterface = mapperInterface(beanDefinition);
+            if (mapperInterface != null) {
+                ConstructorArgumentValues arguments = new ConstructorArgumentValues();
+                arguments.addGenericArgumentValue(mapperInterface);
+                beanDefinition.setConstructorArgumentValues(arguments);
+                beanDefinition.setTargetType(ResolvableType.forClassWithGenerics(beanType, mapperInterface));
+            }
+        }
+
+        /**
+         * 扫描器把 Mapper 接口名作为构造参数传给 MapperFactoryBean
+         */
+        private static Class<?> mapperInterface(RootBeanDefinition beanDefinition) {
+            ConstructorArgumentValues.ValueHolder holder = beanDefinition.getConstructorArgumentValues()
+                    .getArgumentValue(0, null);
+            Object value = holder != null ? holder.getValue() : beanDefinition.getPropertyValues().get("mapperInterface");
+            if (value instanceof Class<?> type) {
+                return type;
+            }
+            if (value instanceof String name) {
+                return ClassUtils.resolveClassName(name, ClassUtils.getDefaultClassLoader());
+            }
+            return null;
+        }
+
+        @Override
+        public int getOrder() {
+            return HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package net.bbq.falsework.config;
+
+import net.bbq.falsework.dto.TokenUser;
+import net.bbq.falsework.entity.Client;
+import net.bbq.falsework.entity.RefreshToken;
+import net.bbq.falsework.entity.User;
+import net.bbq.falsework.entity.UserOutbox;
+import net.bbq.falsework.mapper.ClientMapper;
+import net.bbq.falsework.mapper.RefreshTokenMapper;
+import net.bbq.falsework.mapper.UserMapper;
+import net.bbq.falsework.mapper.UserOutboxMapper;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.lang.invoke.SerializedLambda;
+import java.util.List;
+
+/**
+ * native image 运行时提示：AOT 无法从 Bean 定义推断出的反射、代理和资源访问。
+ * 由 MyFalseworkApplication 上的 @ImportRuntimeHints 注册，只在 process-aot 阶段生效。
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    /** MyBatis 为每个 Mapper 接口创建 JDK 动态代理，并反射读取方法上的 SQL 注解 */
+    private static final List<Class<?>> MAPPERS = List.of(UserMapper.class, RefreshTokenMapper.class,
+            UserOutboxMapper.class, ClientMapper.class);
+
+    /** MyBatis-Plus 通过反射读取字段注解和 Lombok 生成的 getter/setter */
+    private static final List<Class<?>> ENTITIES = List.of(User.class, RefreshToken.class, UserOutbox.class,
+            Client.class);
+
+    /**
+     * JJWT 的 Jwts/Jwks/Keys 通过类名反射创建 impl 包中的实现，
+     * 序列化器通过 ServiceLoader 查找 jjwt-jackson
+     */
+    private static final List<String> JJWT_IMPL_TYPES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardCurves",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionAlgorithm",
+            "io.jsonwebtoken.impl.compression.GzipCompressionAlgorithm",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    );
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> mapper : MAPPERS) {
+            hints.proxies().registerJdkProxy(mapper);
+            hints.reflection().registerType(mapper, MemberCategory.INTROSPECT_PUBLIC_METHODS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity, MemberCategory.values());
+        }
+
+        // TokenUser 由 TokenService 手动通过 ObjectMapper 读写，不在控制器签名中，AOT 不会自动登记
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), TokenUser.class);
+
+        for (String type : JJWT_IMPL_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        // LambdaQueryWrapper 通过 SerializedLambda 解析 User::getXxx 对应的列名，
+        // 捕获 lambda 的类见 META-INF/native-image/net.bbq/my-falsework-lambdas/serialization-config.json
+        hints.reflection().registerType(SerializedLambda.class, MemberCategory.values());
+        hints.serialization().registerType(SerializedLambda.class);
+    }
+}
@@ -0,0 +1,94 @@
+package net.bbq.falsework.config;
+
+import com.baomidou.mybatisplus.core.incrementer.DefaultIdentifierGenerator;
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bbq.falsework.entity.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户 ID 的池化（pooled-lo）分配：每次 nextval('seq_user') 预留一段连续 ID
+ * [value, value + increment)，段内 ID 通过原子计数器无锁分配，段用完时才访问数据库。
+ * 段大小取序列自身的 INCREMENT BY，多节点各自预留不同的段，互不冲突。
+ * 插入前即可得到 ID，批量插入不需要 RETURNING 回读主键。
+ * <p>
+ * 只对 User 生效，其他使用 ASSIGN_ID 的实体沿用 MyBatis-Plus 默认的雪花算法。
+ * 使用 JdbcTemplate 而不是 Mapper，避免与 SqlSessionFactory 的循环依赖。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PooledIdentifierGenerator implements IdentifierGenerator {
+
+    private static final String SEQUENCE = "seq_user";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    private volatile long blockSize;
+
+    private record Block(AtomicLong next, long end) {
+
+        static final Block EMPTY = new Block(new AtomicLong(0), 0);
+    }
+
+    @Override
+    public Number nextId(Object entity) {
+        if (entity instanceof User) {
+            return nextUserId();
+        }
+        return DefaultIdentifierGenerator.getInstance().nextId(entity);
+    }
+
+    public long nextUserId() {
+        while (true) {
+            Block block = current.get();
+            long id = block.next().getAndIncrement();
+            if (id < block.end()) {
+                return id;
+            }
+            refill(block);
+        }
+    }
+
+    /**
+     * 只有第一个发现段耗尽的线程访问数据库，其余线程等待后直接使用新段
+     */
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (current.get() != exhausted) {
+                return;
+            }
+            long size = blockSize();
+            Long start = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE + "')", Long.class);
+            if (start == null) {
+                throw new IllegalStateException("nextval returned no value for " + SEQUENCE);
+            }
+            current.set(new Block(new AtomicLong(start), start + size));
+            log.debug("Reserved user id block [{}, {})", start, start + size);
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private long blockSize() {
+        if (blockSize == 0) {
+            Long increment = jdbcTemplate.queryForObject(
+                    "SELECT increment_by FROM pg_sequences WHERE sequencename = ?", Long.class, SEQUENCE);
+            if (increment == null || increment < 1) {
+                throw new IllegalStateException("Invalid increment for sequence " + SEQUENCE + ": " + increment);
+            }
+            blockSize = increment;
+        }
+        return blockSize;
+    }
+}
@@ -25,9 +25,16 @@ public class RedisConfig {
     @Value("${spring.data.redis.timeout:3000}")
     private int timeout;
 
+    /** 延迟到首次使用时再建立连接，启动不等待 Redis */
+    @Value("${redisson.lazy-initialization:false}")
+    private boolean lazyInitialization;
+
     @Bean
     public RedissonClient redissonClient() {
         Config config = new Config();
+        // 脚本以 EVALSHA 执行，不必每次发送完整脚本
+        config.setUseScriptCache(true);
+        config.setLazyInitialization(lazyInitialization);
         String address = "redis://" + host + ":" + port;
 
         config.useSingleServer()
@@ -10,9 +10,14 @@ import lombok.RequiredArgsConstructor;
 import net.bbq.falsework.dto.auth.AuthResponse;
 import net.bbq.falsework.dto.auth.ClientLoginRequest;
 import net.bbq.falsework.dto.auth.LoginRequest;
+import net.bbq.falsework.dto.auth.LogoutRequest;
 import net.bbq.falsework.dto.auth.RefreshTokenRequest;
 import net.bbq.falsework.dto.auth.RegisterRequest;
+import net.bbq.falsework.security.RateLimitExceededException;
 import net.bbq.falsework.service.AuthService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -39,7 +44,8 @@ public class AuthController {
     @Operation(summary = "用户密码登录", description = "使用用户名和密码进行登录")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "登录成功"),
-            @ApiResponse(responseCode = "401", description = "认证失败")
+            @ApiResponse(responseCode = "401", description = "认证失败"),
+            @ApiResponse(responseCode = "429", description = "请求过于频繁")
     })
     @PostMapping("/login")
     public AuthResponse login(@Valid @RequestBody LoginRequest request) {
@@ -49,7 +55,8 @@ public class AuthController {
     @Operation(summary = "客户端密钥登录", description = "使用客户端ID和密钥进行登录")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "登录成功"),
-            @ApiResponse(responseCode = "401", description = "认证失败")
+            @ApiResponse(responseCode = "401", description = "认证失败"),
+            @ApiResponse(responseCode = "429", description = "请求过于频繁")
     })
     @PostMapping("/client/login")
     public AuthResponse clientLogin(@Valid @RequestBody ClientLoginRequest request) {
@@ -59,13 +66,31 @@ public class AuthController {
     @Operation(summary = "刷新令牌", description = "使用刷新令牌获取新的访问令牌")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "刷新成功"),
-            @ApiResponse(responseCode = "401", description = "令牌无效")
+            @ApiResponse(responseCode = "401", description = "令牌无效"),
+            @ApiResponse(responseCode = "429", description = "请求过于频繁")
     })
     @PostMapping("/refresh")
     public AuthResponse refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
         return authService.refreshToken(request.getRefreshToken());
     }
 
+    @Operation(summary = "注销", description = "使当前访问令牌失效，请求体中带刷新令牌时一并吊销其令牌家族")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "注销成功")
+    })
+    @PostMapping("/logout")
+    public Map<String, Object> logout(
+            @Parameter(description = "Bearer 访问令牌", required = true)
+            @RequestHeader("Authorization") String authorization,
+            @RequestBody(required = false) LogoutRequest request) {
+        if (authorization.startsWith("Bearer ")) {
+            authService.logout(authorization.substring(7), request != null ? request.getRefreshToken() : null);
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("message", "注销成功");
+        return result;
+    }
+
     @Operation(summary = "检查用户名是否存在", description = "检查用户名是否已被注册")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "检查成功")
@@ -95,4 +120,14 @@ public class AuthController {
         result.put("message", exists ? "邮箱已被注册" : "邮箱可用");
         return result;
     }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimit(RateLimitExceededException ex) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", HttpStatus.TOO_MANY_REQUESTS.value());
+        result.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(result);
+    }
 }
@@ -0,0 +1,55 @@
+package net.bbq.falsework.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import net.bbq.falsework.dto.ClientCreateRequest;
+import net.bbq.falsework.dto.CommonResult;
+import net.bbq.falsework.service.ClientRegistryService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "客户端管理", description = "客户端密钥登录使用的客户端注册表")
+@RestController
+@RequestMapping("/api/clients")
+@RequiredArgsConstructor
+public class ClientController {
+
+    private final ClientRegistryService clientRegistry;
+
+    @Operation(summary = "创建客户端", description = "为用户创建客户端，响应中的密钥只返回这一次，服务端不保存原文")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "创建成功"),
+            @ApiResponse(responseCode = "400", description = "参数校验失败、用户不存在或客户端ID已存在")
+    })
+    @PreAuthorize("hasPermission(null, 'CLIENT_WRITE')")
+    @PostMapping
+    public CommonResult<ClientRegistryService.ProvisionedClient> createClient(
+            @Valid @RequestBody ClientCreateRequest request) {
+        try {
+            return CommonResult.success("客户端创建成功",
+                    clientRegistry.provision(request.getUserId(), request.getClientId()));
+        } catch (RuntimeException e) {
+            return CommonResult.error(400, e.getMessage());
+        }
+    }
+
+    @Operation(summary = "删除客户端", description = "删除后不能再用该客户端登录，已签发的令牌在过期前仍然有效")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "删除成功"),
+            @ApiResponse(responseCode = "404", description = "客户端不存在")
+    })
+    @PreAuthorize("hasPermission(null, 'CLIENT_WRITE')")
+    @DeleteMapping("/{clientId}")
+    public CommonResult<Void> deleteClient(
+            @Parameter(description = "客户端ID", example = "client_app_001", required = true)
+            @PathVariable("clientId") String clientId) {
+        return clientRegistry.delete(clientId)
+                ? CommonResult.success("客户端删除成功", null)
+                : CommonResult.error(404, "客户端不存在");
+    }
+}
@@ -0,0 +1,41 @@
+package net.bbq.falsework.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import net.bbq.falsework.dto.CommonResult;
+import net.bbq.falsework.dto.TokenIntrospectRequest;
+import net.bbq.falsework.dto.TokenIntrospection;
+import net.bbq.falsework.service.TokenIntrospectionService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "令牌内省", description = "供内部服务批量校验访问令牌")
+@RestController
+@RequestMapping("/api/tokens")
+@RequiredArgsConstructor
+public class TokenIntrospectionController {
+
+    private final TokenIntrospectionService introspectionService;
+
+    @Operation(summary = "批量内省访问令牌",
+            description = "调用方使用客户端令牌认证（需要 TOKEN_INTROSPECT 权限），结果与请求中的令牌顺序一致")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "内省成功"),
+            @ApiResponse(responseCode = "400", description = "令牌列表为空或超过上限"),
+            @ApiResponse(responseCode = "403", description = "缺少 TOKEN_INTROSPECT 权限")
+    })
+    @PreAuthorize("hasPermission(null, 'TOKEN_INTROSPECT')")
+    @PostMapping("/introspect")
+    public CommonResult<List<TokenIntrospection>> introspect(@Valid @RequestBody TokenIntrospectRequest request) {
+        return CommonResult.success(introspectionService.introspect(request.getTokens()));
+    }
+}
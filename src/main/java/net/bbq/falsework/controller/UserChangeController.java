@@ -0,0 +1,43 @@
+package net.bbq.falsework.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import net.bbq.falsework.service.UserChangeFeedService;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Tag(name = "用户变更订阅", description = "用户增删改事件流（SSE）")
+@RestController
+@RequestMapping("/api/users/changes")
+@RequiredArgsConstructor
+public class UserChangeController {
+
+    private final UserChangeFeedService feedService;
+
+    @Operation(summary = "订阅用户变更",
+            description = "事件名为 CREATED/UPDATED/DELETED，数据为用户快照；断线重连时带 Last-Event-ID 从断点继续，" +
+                    "收到 reset 事件表示断点已过期，需要全量重新加载")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "事件流"),
+            @ApiResponse(responseCode = "503", description = "订阅数已达上限")
+    })
+    @PreAuthorize("hasPermission(null, 'USER_READ')")
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @Parameter(description = "上次收到的事件 id")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            @Parameter(description = "起始事件 id，未提供 Last-Event-ID 时使用")
+            @RequestParam(value = "from", required = false) String from) {
+        return feedService.subscribe(lastEventId != null ? lastEventId : from);
+    }
+}
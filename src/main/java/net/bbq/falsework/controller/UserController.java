@@ -11,11 +11,20 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import net.bbq.falsework.dto.CommonResult;
 import net.bbq.falsework.dto.UserCreateRequest;
+import net.bbq.falsework.dto.UserPatchRequest;
 import net.bbq.falsework.dto.UserUpdateRequest;
 import net.bbq.falsework.entity.User;
+import net.bbq.falsework.service.UserNotFoundException;
 import net.bbq.falsework.service.UserService;
+import net.bbq.falsework.service.UserVersionConflictException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 @Tag(name = "用户管理", description = "用户相关接口")
@@ -33,6 +42,7 @@ public class UserController {
             @ApiResponse(responseCode = "400", description = "参数校验失败"),
             @ApiResponse(responseCode = "500", description = "服务器内部错误")
     })
+    @PreAuthorize("hasPermission(null, 'USER_WRITE')")
     @PostMapping
     public CommonResult<User> createUser(@Valid @RequestBody UserCreateRequest request) {
         User user = userService.createUser(
@@ -46,50 +56,79 @@ public class UserController {
     @Operation(summary = "根据ID查询用户", description = "通过用户ID获取用户详细信息")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "304", description = "用户未修改（If-None-Match 命中）"),
             @ApiResponse(responseCode = "404", description = "用户不存在")
     })
+    @PreAuthorize("hasPermission(null, 'USER_READ')")
     @GetMapping("/{id}")
-    public CommonResult<User> getUserById(
+    public ResponseEntity<CommonResult<User>> getUserById(
             @Parameter(description = "用户ID", example = "1", required = true)
             @PathVariable("id") Long id) {
         return userService.getUserById(id)
-                .map(user -> CommonResult.success("查询成功", user))
-                .orElseGet(() -> CommonResult.error(404, "用户不存在"));
+                .map(UserController::conditionalOk)
+                .orElseGet(() -> ResponseEntity.ok(CommonResult.error(404, "用户不存在")));
     }
 
     @Operation(summary = "根据用户名查询", description = "通过用户名获取用户信息")
+    @PreAuthorize("hasPermission(null, 'USER_READ')")
     @GetMapping("/username/{username}")
-    public CommonResult<User> getUserByUsername(
+    public ResponseEntity<CommonResult<User>> getUserByUsername(
             @Parameter(description = "用户名", example = "john_doe", required = true)
             @PathVariable("username") String username) {
         return userService.getUserByUsername(username)
-                .map(user -> CommonResult.success("查询成功", user))
-                .orElseGet(() -> CommonResult.error(404, "用户不存在"));
+                .map(UserController::conditionalOk)
+                .orElseGet(() -> ResponseEntity.ok(CommonResult.error(404, "用户不存在")));
     }
 
     @Operation(summary = "根据邮箱查询", description = "通过邮箱获取用户信息")
+    @PreAuthorize("hasPermission(null, 'USER_READ')")
     @GetMapping("/email")
-    public CommonResult<User> getUserByEmail(
+    public ResponseEntity<CommonResult<User>> getUserByEmail(
             @Parameter(description = "邮箱地址", example = "john@example.com", required = true)
             @RequestParam("email") String email) {
         return userService.getUserByEmail(email)
-                .map(user -> CommonResult.success("查询成功", user))
-                .orElseGet(() -> CommonResult.error(404, "用户不存在"));
+                .map(UserController::conditionalOk)
+                .orElseGet(() -> ResponseEntity.ok(CommonResult.error(404, "用户不存在")));
+    }
+
+    /**
+     * 带 ETag 的成功响应。请求的 If-None-Match 匹配时由 Spring 直接返回 304，响应体不会被序列化
+     */
+    private static ResponseEntity<CommonResult<User>> conditionalOk(User user) {
+        return ResponseEntity.ok()
+                .eTag(etag(user))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(CommonResult.success("查询成功", user));
+    }
+
+    /**
+     * 由 ID 和 updatedAt 计算的弱 ETag（响应可能被压缩，因此不使用强校验）
+     */
+    private static String etag(User user) {
+        LocalDateTime updatedAt = user.getUpdatedAt();
+        // 精确到微秒，与数据库 TIMESTAMP 的精度一致
+        long version = updatedAt != null
+                ? updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updatedAt.getNano() / 1_000
+                : 0L;
+        return "W/\"" + user.getId() + "-" + Long.toHexString(version) + "\"";
     }
 
     @Operation(summary = "获取所有用户", description = "获取系统中所有用户的列表")
+    @PreAuthorize("hasPermission(null, 'USER_READ')")
     @GetMapping
     public CommonResult<List<User>> getAllUsers() {
         List<User> users = userService.getAllUsers();
         return CommonResult.success("查询成功", users);
     }
 
-    @Operation(summary = "更新用户信息", description = "根据用户ID更新用户信息")
+    @Operation(summary = "更新用户信息", description = "根据用户ID更新用户信息；提供 version 时按乐观锁校验，不提供时后写者胜")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "更新成功"),
             @ApiResponse(responseCode = "400", description = "参数校验失败"),
-            @ApiResponse(responseCode = "404", description = "用户不存在")
+            @ApiResponse(responseCode = "404", description = "用户不存在"),
+            @ApiResponse(responseCode = "409", description = "版本冲突，或用户名、邮箱已被占用")
     })
+    @PreAuthorize("hasPermission(null, 'USER_WRITE')")
     @PutMapping("/{id}")
     public CommonResult<User> updateUser(
             @Parameter(description = "用户ID", example = "1", required = true)
@@ -100,10 +139,50 @@ public class UserController {
                     id,
                     request.getUsername(),
                     request.getEmail(),
-                    request.getPassword()
+                    request.getPassword(),
+                    request.getVersion()
+            );
+            return CommonResult.success("用户更新成功", user);
+        } catch (UserVersionConflictException e) {
+            return CommonResult.error(409, e.getMessage());
+        } catch (DuplicateKeyException e) {
+            return CommonResult.error(409, "用户名或邮箱已存在");
+        } catch (UserNotFoundException e) {
+            return CommonResult.error(404, e.getMessage());
+        }
+    }
+
+    @Operation(summary = "部分更新用户信息", description = "只更新请求中提供的字段；提供 version 时按乐观锁校验")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "更新成功"),
+            @ApiResponse(responseCode = "400", description = "参数校验失败或未提供任何字段"),
+            @ApiResponse(responseCode = "404", description = "用户不存在"),
+            @ApiResponse(responseCode = "409", description = "版本冲突，或用户名、邮箱已被占用")
+    })
+    @PreAuthorize("hasPermission(null, 'USER_WRITE')")
+    @PatchMapping("/{id}")
+    public CommonResult<User> patchUser(
+            @Parameter(description = "用户ID", example = "1", required = true)
+            @PathVariable("id") Long id,
+            @Valid @RequestBody UserPatchRequest request) {
+        if (request.getUsername() == null && request.getEmail() == null && request.getPassword() == null) {
+            // 空请求不修改任何字段，不应递增版本号
+            return CommonResult.error(400, "至少需要提供一个要更新的字段");
+        }
+        try {
+            User user = userService.patchUser(
+                    id,
+                    request.getUsername(),
+                    request.getEmail(),
+                    request.getPassword(),
+                    request.getVersion()
             );
             return CommonResult.success("用户更新成功", user);
-        } catch (RuntimeException e) {
+        } catch (UserVersionConflictException e) {
+            return CommonResult.error(409, e.getMessage());
+        } catch (DuplicateKeyException e) {
+            return CommonResult.error(409, "用户名或邮箱已存在");
+        } catch (UserNotFoundException e) {
             return CommonResult.error(404, e.getMessage());
         }
     }
@@ -113,6 +192,7 @@ public class UserController {
             @ApiResponse(responseCode = "200", description = "删除成功"),
             @ApiResponse(responseCode = "404", description = "用户不存在")
     })
+    @PreAuthorize("hasPermission(null, 'USER_DELETE')")
     @DeleteMapping("/{id}")
     public CommonResult<Void> deleteUser(
             @Parameter(description = "用户ID", example = "1", required = true)
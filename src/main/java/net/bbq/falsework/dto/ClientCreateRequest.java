@@ -0,0 +1,21 @@
+package net.bbq.falsework.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Schema(description = "创建客户端请求")
+@Data
+public class ClientCreateRequest {
+
+    @Schema(description = "客户端代表的用户ID", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "用户ID不能为空")
+    private Long userId;
+
+    @Schema(description = "客户端ID，为空时自动生成", example = "client_app_001")
+    @Size(min = 3, max = 64, message = "客户端ID长度必须在3-64个字符之间")
+    @Pattern(regexp = "[A-Za-z0-9_.-]+", message = "客户端ID只能包含字母、数字和 _ . -")
+    private String clientId;
+}
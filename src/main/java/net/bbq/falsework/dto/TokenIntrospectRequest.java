@@ -0,0 +1,19 @@
+package net.bbq.falsework.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Schema(description = "批量令牌内省请求")
+@Data
+public class TokenIntrospectRequest {
+
+    @Schema(description = "访问令牌（不含 Bearer 前缀），不透明令牌或 JWT 均可",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty(message = "令牌列表不能为空")
+    @Size(max = 500, message = "单次最多内省500个令牌")
+    private List<String> tokens;
+}
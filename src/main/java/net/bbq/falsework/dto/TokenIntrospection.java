@@ -0,0 +1,23 @@
+package net.bbq.falsework.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Schema(description = "单个令牌的内省结果")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenIntrospection {
+
+    @Schema(description = "令牌是否有效", example = "true")
+    private boolean active;
+
+    @Schema(description = "令牌对应的用户，无效时为空")
+    private TokenUser user;
+
+    public static TokenIntrospection of(TokenUser tokenUser) {
+        return new TokenIntrospection(tokenUser != null, tokenUser);
+    }
+}
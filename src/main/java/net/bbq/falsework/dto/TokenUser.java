@@ -10,5 +10,14 @@ import lombok.NoArgsConstructor;
 public class TokenUser {
     private Long userId;
     private String username;
+    /** 主角色 */
     private String role;
-}
\ No newline at end of file
+    /** 全部角色，逗号分隔，对应 t_user.roles */
+    private String roles;
+    /** 权限掩码，见 Permission */
+    private long permissions;
+
+    public TokenUser(Long userId, String username, String role) {
+        this(userId, username, role, role, 0L);
+    }
+}
@@ -20,4 +20,7 @@ public class UserUpdateRequest {
     @Schema(description = "密码", example = "newpassword123")
     @Size(min = 6, max = 100, message = "密码长度必须在6-100个字符之间")
     private String password;
+
+    @Schema(description = "期望的当前版本号，提供时与数据库不一致则更新失败；不提供时后写者胜", example = "3")
+    private Long version;
 }
\ No newline at end of file
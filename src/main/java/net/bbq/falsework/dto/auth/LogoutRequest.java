@@ -0,0 +1,12 @@
+package net.bbq.falsework.dto.auth;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Schema(description = "注销请求")
+@Data
+public class LogoutRequest {
+
+    @Schema(description = "刷新令牌，传入时吊销其所在的令牌家族")
+    private String refreshToken;
+}
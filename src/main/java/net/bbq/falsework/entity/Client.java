@@ -0,0 +1,35 @@
+package net.bbq.falsework.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("t_client")
+public class Client {
+
+    @TableId(value = "client_id", type = IdType.INPUT)
+    private String clientId;
+
+    /** 客户端密钥的 HMAC-SHA256（十六进制），HMAC 密钥为 client.secret-pepper，数据库中不保存密钥原文 */
+    @TableField("secret_hash")
+    private String secretHash;
+
+    /** 客户端代表的用户，签发的令牌以该用户身份访问 */
+    @TableField("user_id")
+    private Long userId;
+
+    @TableField("enabled")
+    private Boolean enabled = true;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /** 所属用户的用户名，仅在关联查询时填充 */
+    @TableField(exist = false)
+    private String username;
+}
@@ -0,0 +1,37 @@
+package net.bbq.falsework.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@TableName("t_refresh_token")
+public class RefreshToken {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 刷新令牌的 SHA-256 摘要，数据库中不保存令牌原文 */
+    @TableField("token_hash")
+    private String tokenHash;
+
+    /** 令牌家族标识，同一次登录轮换出的刷新令牌属于同一家族 */
+    @TableField("family_id")
+    private String familyId;
+
+    @TableField("user_id")
+    private Long userId;
+
+    @TableField("username")
+    private String username;
+
+    @TableField("expires_at")
+    private LocalDateTime expiresAt;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.Version;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -12,7 +13,8 @@ import java.time.LocalDateTime;
 @TableName("t_user")
 public class User {
 
-    @TableId(value = "id", type = IdType.AUTO)
+    /** 由 PooledIdentifierGenerator 从 seq_user 预留的段中分配 */
+    @TableId(value = "id", type = IdType.ASSIGN_ID)
     private Long id;
 
     @TableField("username")
@@ -24,6 +26,7 @@ public class User {
     @TableField("password")
     private String password;
 
+    /** 已废弃：客户端凭据改由 t_client 管理，该列不再写入也不再用于登录 */
     @TableField("client_secret")
     private String clientSecret;
 
@@ -38,4 +41,9 @@ public class User {
 
     @TableField("updated_at")
     private LocalDateTime updatedAt;
+
+    /** 乐观锁版本号，每次更新加一 */
+    @Version
+    @TableField("version")
+    private Long version = 0L;
 }
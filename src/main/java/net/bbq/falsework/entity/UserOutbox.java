@@ -0,0 +1,34 @@
+package net.bbq.falsework.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户变更发件箱，与用户数据在同一事务中写入，发布到 Redis Stream 后删除
+ */
+@Data
+@TableName("t_user_outbox")
+public class UserOutbox {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** CREATED / UPDATED / DELETED */
+    @TableField("event_type")
+    private String eventType;
+
+    @TableField("user_id")
+    private Long userId;
+
+    /** 变更后的用户快照（JSON，不含密码和客户端密钥） */
+    @TableField("payload")
+    private String payload;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,20 @@
+package net.bbq.falsework.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import net.bbq.falsework.entity.Client;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Optional;
+
+@Mapper
+public interface ClientMapper extends BaseMapper<Client> {
+
+    /**
+     * 按主键查询启用的客户端，同时带出所属用户的用户名；所属用户被禁用时视为不存在
+     */
+    @Select("SELECT c.*, u.username FROM t_client c JOIN t_user u ON u.id = c.user_id " +
+            "WHERE c.client_id = #{clientId} AND c.enabled = TRUE AND u.enabled = TRUE")
+    Optional<Client> findActive(@Param("clientId") String clientId);
+}
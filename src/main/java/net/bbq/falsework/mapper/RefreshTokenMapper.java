@@ -0,0 +1,34 @@
+package net.bbq.falsework.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import net.bbq.falsework.entity.RefreshToken;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Mapper
+public interface RefreshTokenMapper extends BaseMapper<RefreshToken> {
+
+    @Select("SELECT * FROM t_refresh_token WHERE token_hash = #{tokenHash} AND expires_at > #{now}")
+    Optional<RefreshToken> findValidByHash(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+
+    @Delete("DELETE FROM t_refresh_token WHERE token_hash = #{tokenHash}")
+    int deleteByHash(@Param("tokenHash") String tokenHash);
+
+    @Delete("DELETE FROM t_refresh_token WHERE family_id = #{familyId}")
+    int deleteByFamilyId(@Param("familyId") String familyId);
+
+    @Delete("DELETE FROM t_refresh_token WHERE user_id = #{userId}")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * 按过期时间索引分批删除，单次删除的行数不超过 limit
+     */
+    @Delete("DELETE FROM t_refresh_token WHERE id IN " +
+            "(SELECT id FROM t_refresh_token WHERE expires_at < #{now} LIMIT #{limit})")
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -3,9 +3,11 @@ package net.bbq.falsework.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import net.bbq.falsework.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Mapper
@@ -16,4 +18,27 @@ public interface UserMapper extends BaseMapper<User> {
 
     @Select("SELECT * FROM t_user WHERE email = #{email}")
     Optional<User> findByEmail(@Param("email") String email);
+
+    /**
+     * 部分更新：只写入非空字段，version 不为空时作为乐观锁条件。
+     * 一条 UPDATE ... RETURNING 完成更新并返回新行，无需再次查询；
+     * 未更新任何行（不存在或版本不一致）时返回空
+     */
+    @Select("<script>" +
+            "UPDATE t_user <set>" +
+            "<if test='username != null'>username = #{username},</if>" +
+            "<if test='email != null'>email = #{email},</if>" +
+            "<if test='password != null'>password = #{password},</if>" +
+            "updated_at = #{updatedAt}, version = version + 1" +
+            "</set> WHERE id = #{id}" +
+            "<if test='version != null'> AND version = #{version}</if>" +
+            " RETURNING *" +
+            "</script>")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    Optional<User> patch(@Param("id") Long id,
+                         @Param("username") String username,
+                         @Param("email") String email,
+                         @Param("password") String password,
+                         @Param("updatedAt") LocalDateTime updatedAt,
+                         @Param("version") Long version);
 }
@@ -0,0 +1,22 @@
+package net.bbq.falsework.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import net.bbq.falsework.entity.UserOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface UserOutboxMapper extends BaseMapper<UserOutbox> {
+
+    /**
+     * 事务级咨询锁，事务结束自动释放；同一时刻只有一个节点发布，避免多个节点交错追加同一批事件
+     */
+    @Select("SELECT pg_try_advisory_xact_lock(#{key})")
+    boolean tryPublisherLock(@Param("key") long key);
+
+    @Select("SELECT * FROM t_user_outbox ORDER BY id LIMIT #{limit}")
+    List<UserOutbox> findOldest(@Param("limit") int limit);
+}
@@ -0,0 +1,108 @@
+package net.bbq.falsework.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import net.bbq.falsework.dto.TokenUser;
+import net.bbq.falsework.service.TokenRevocationService;
+import net.bbq.falsework.service.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 将请求携带的访问令牌解析为 TokenUser。
+ * opaque 模式：先查 Redis 中的不透明令牌，再回退到 JWT 校验；
+ * jwt 模式：JWT 令牌只做本地验签和吊销列表检查，不访问 Redis。
+ */
+@Component
+@RequiredArgsConstructor
+public class AccessTokenResolver {
+
+    private final JwtTokenProvider tokenProvider;
+    private final TokenService tokenService;
+    private final TokenRevocationService revocationService;
+
+    @Value("${token.mode:opaque}")
+    private String tokenMode;
+
+    public TokenUser resolve(String token) {
+        boolean jwt = isJwt(token);
+
+        if (jwt && isStateless()) {
+            return resolveJwt(token);
+        }
+
+        TokenUser tokenUser = tokenService.getUserByToken(token);
+        if (tokenUser == null && jwt) {
+            tokenUser = resolveJwt(token);
+        }
+        return tokenUser;
+    }
+
+    /**
+     * 批量解析（令牌内省），结果与 tokens 顺序一致，无效令牌的位置为 null。
+     * 需要查询令牌存储的令牌合并为一次批量读取，规则与 resolve 相同；只读，不触发滑动续期
+     */
+    public List<TokenUser> resolveAll(List<String> tokens) {
+        TokenUser[] resolved = new TokenUser[tokens.size()];
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (token == null || token.isBlank()) {
+                continue;
+            }
+            if (isJwt(token) && isStateless()) {
+                resolved[i] = resolveJwt(token);
+            } else {
+                pending.add(i);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            List<TokenUser> users = tokenService.peekUsersByTokens(pending.stream().map(tokens::get).toList());
+            for (int j = 0; j < pending.size(); j++) {
+                int i = pending.get(j);
+                TokenUser tokenUser = users.get(j);
+                if (tokenUser == null && isJwt(tokens.get(i))) {
+                    tokenUser = resolveJwt(tokens.get(i));
+                }
+                resolved[i] = tokenUser;
+            }
+        }
+        return Arrays.asList(resolved);
+    }
+
+    /**
+     * 是否为无状态模式（登录签发自包含的 JWT 访问令牌）
+     */
+    public boolean isStateless() {
+        return "jwt".equalsIgnoreCase(tokenMode);
+    }
+
+    private TokenUser resolveJwt(String token) {
+        Claims claims = tokenProvider.parseClaims(token);
+        if (claims == null || !tokenProvider.isAccessToken(claims) || revocationService.isRevoked(claims.getId())) {
+            return null;
+        }
+        String role = claims.get("role", String.class);
+        String roles = claims.get("roles", String.class);
+        Long permissions = claims.get("perms", Long.class);
+        return new TokenUser(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                role,
+                roles != null ? roles : role,
+                permissions != null ? permissions : 0L
+        );
+    }
+
+    /**
+     * JWT 由三段组成，不透明令牌不含 '.'
+     */
+    static boolean isJwt(String token) {
+        return token.indexOf('.') > 0;
+    }
+}
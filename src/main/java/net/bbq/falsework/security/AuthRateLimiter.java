@@ -0,0 +1,269 @@
+package net.bbq.falsework.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RateType;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 认证接口限流，防止撞库请求耗尽 BCrypt 计算和数据库查询。
+ * 按 IP、用户名+IP、clientId 分别限流：先经过本地令牌桶预过滤（本节点已超限时不再访问Redis），
+ * 再由 Redisson RRateLimiter 做集群范围的令牌桶限流。
+ * Redis 不可用时改用容量为全局限额一部分的本地令牌桶，避免每个节点各自放行完整的全局限额。
+ * 用户名维度带上 IP，单个来源无法通过反复输错密码锁定他人账户。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthRateLimiter {
+
+    private static final String KEY_PREFIX = "auth:ratelimit:";
+
+    private final RedissonClient redissonClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.rate-limit.window:60}")  // 秒
+    private long window;
+
+    @Value("${auth.rate-limit.ip-permits:30}")
+    private long ipPermits;
+
+    @Value("${auth.rate-limit.username-permits:5}")
+    private long usernamePermits;
+
+    @Value("${auth.rate-limit.client-permits:10}")
+    private long clientPermits;
+
+    @Value("${auth.rate-limit.refresh-permits:30}")
+    private long refreshPermits;
+
+    /** Redis 不可用时每个节点单独放行的比例，约为 1 / 节点数 */
+    @Value("${auth.rate-limit.local-fraction:0.25}")
+    private double localFraction;
+
+    /** 被拒绝次数统计最多跟踪的键数，超出后新键不再计入 */
+    @Value("${auth.rate-limit.offenders-tracked:1000}")
+    private int offendersTracked;
+
+    /** 每个清理周期日志中报告的被拒绝最多的键数 */
+    @Value("${auth.rate-limit.offenders-reported:10}")
+    private int offendersReported;
+
+    private final Map<String, KeyLimit> localBuckets = new ConcurrentHashMap<>();
+
+    /** 本周期内每个键被拒绝的次数，只用于日志报告，不作为指标标签 */
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean remoteAvailable = new AtomicBoolean(true);
+
+    /**
+     * 用户名密码登录
+     */
+    public void checkLogin(String username) {
+        String ip = clientIp();
+        check("ip", ip, ipPermits);
+        check("username", username == null || ip == null ? username : username + "@" + ip, usernamePermits);
+    }
+
+    /**
+     * 客户端密钥登录
+     */
+    public void checkClientLogin(String clientId) {
+        check("ip", clientIp(), ipPermits);
+        check("client", clientId, clientPermits);
+    }
+
+    /**
+     * 注册
+     */
+    public void checkRegister() {
+        check("ip", clientIp(), ipPermits);
+    }
+
+    /**
+     * 刷新令牌，与登录分开计数
+     */
+    public void checkRefresh() {
+        check("refresh", clientIp(), refreshPermits);
+    }
+
+    private void check(String dimension, String value, long permits) {
+        if (!enabled || value == null) {
+            return;
+        }
+
+        String key = KEY_PREFIX + dimension + ":" + value;
+        KeyLimit limit = localBuckets.computeIfAbsent(key, k -> new KeyLimit(permits, window));
+
+        if (!limit.bucket.tryAcquire()) {
+            reject(dimension, "local", key, limit.bucket.retryAfterSeconds());
+        }
+
+        try {
+            RRateLimiter limiter = redissonClient.getRateLimiter(key);
+            if (!limit.remoteInitialized) {
+                // keepAlive 保证空闲的限流器在Redis中自动过期
+                limiter.trySetRate(RateType.OVERALL, permits,
+                        Duration.ofSeconds(window), Duration.ofSeconds(window * 2));
+                limit.remoteInitialized = true;
+            }
+            boolean acquired = limiter.tryAcquire();
+            if (remoteAvailable.compareAndSet(false, true)) {
+                log.info("Rate limiter backend recovered, using cluster-wide limits again");
+            }
+            if (!acquired) {
+                reject(dimension, "redis", key, Math.max(1, (window + permits - 1) / permits));
+            }
+        } catch (RateLimitExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            // 只在状态切换时记录一次，避免 Redis 故障期间每个请求都打印日志
+            if (remoteAvailable.compareAndSet(true, false)) {
+                log.warn("Rate limiter backend unavailable, falling back to local limits: {}", e.getMessage());
+            }
+            LocalBucket fallback = limit.fallback(localCapacity(permits), window);
+            if (!fallback.tryAcquire()) {
+                reject(dimension, "fallback", key, fallback.retryAfterSeconds());
+            }
+        }
+    }
+
+    private long localCapacity(long permits) {
+        return Math.max(1, (long) Math.ceil(permits * localFraction));
+    }
+
+    private void reject(String dimension, String source, String key, long retryAfter) {
+        meterRegistry.counter("auth.ratelimit.rejected", "dimension", dimension, "source", source).increment();
+        LongAdder count = rejections.get(key);
+        if (count == null && rejections.size() < offendersTracked) {
+            count = rejections.computeIfAbsent(key, k -> new LongAdder());
+        }
+        if (count != null) {
+            count.increment();
+        }
+        log.debug("Rate limit exceeded: {}", key);
+        throw new RateLimitExceededException("请求过于频繁，请稍后再试", retryAfter);
+    }
+
+    /**
+     * 报告本周期被拒绝最多的键，并清理已回满且长时间未使用的本地令牌桶
+     */
+    @Scheduled(fixedDelayString = "${auth.rate-limit.cleanup-interval:60000}")
+    public void cleanup() {
+        reportOffenders();
+
+        long idleNanos = Duration.ofSeconds(window * 2).toNanos();
+        long now = System.nanoTime();
+        localBuckets.values().removeIf(limit -> now - limit.bucket.lastRefill > idleNanos);
+    }
+
+    private void reportOffenders() {
+        if (rejections.isEmpty()) {
+            return;
+        }
+        Map<String, Long> snapshot = rejections.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+        rejections.clear();
+        String top = snapshot.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(offendersReported)
+                .map(entry -> entry.getKey().substring(KEY_PREFIX.length()) + "=" + entry.getValue())
+                .collect(Collectors.joining(", "));
+        log.warn("Rate limit rejections by key ({} keys): {}", snapshot.size(), top);
+    }
+
+    private String clientIp() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * 单个限流键的本地状态：预过滤令牌桶与全局限额相同，只用于在本节点已超限时省去Redis访问；
+     * 降级令牌桶只在Redis不可用时使用，容量为全局限额的一部分
+     */
+    private static final class KeyLimit {
+
+        private final LocalBucket bucket;
+        private volatile LocalBucket fallback;
+        private volatile boolean remoteInitialized;
+
+        KeyLimit(long permits, long windowSeconds) {
+            this.bucket = new LocalBucket(permits, windowSeconds);
+        }
+
+        LocalBucket fallback(long capacity, long windowSeconds) {
+            LocalBucket current = fallback;
+            if (current == null) {
+                synchronized (this) {
+                    current = fallback;
+                    if (current == null) {
+                        current = new LocalBucket(capacity, windowSeconds);
+                        fallback = current;
+                    }
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 本地令牌桶：容量为 capacity，每个窗口匀速回满
+     */
+    private static final class LocalBucket {
+
+        private final long capacity;
+        private final double nanosPerPermit;
+        private double tokens;
+        private volatile long lastRefill;
+
+        LocalBucket(long capacity, long windowSeconds) {
+            this.capacity = capacity;
+            this.nanosPerPermit = (double) Duration.ofSeconds(windowSeconds).toNanos() / capacity;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized boolean tryAcquire() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized long retryAfterSeconds() {
+            double nanos = (1 - tokens) * nanosPerPermit;
+            return Math.max(1, (long) Math.ceil(nanos / 1_000_000_000d));
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / nanosPerPermit);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package net.bbq.falsework.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bbq.falsework.dto.TokenUser;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * 基于权限掩码的 hasPermission 实现：@PreAuthorize("hasPermission(null, 'USER_READ')")。
+ * 权限掩码随令牌携带在认证信息中，检查只是一次位运算，不访问数据库或Redis。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BitmaskPermissionEvaluator implements PermissionEvaluator {
+
+    private final RolePermissions rolePermissions;
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        return check(authentication, permission);
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission) {
+        return check(authentication, permission);
+    }
+
+    private boolean check(Authentication authentication, Object permission) {
+        if (!(authentication instanceof TokenAuthentication tokenAuthentication)) {
+            return false;
+        }
+
+        TokenUser tokenUser = tokenAuthentication.getTokenUser();
+        long mask = tokenUser.getPermissions();
+        if (mask == 0L) {
+            // 未携带掩码的令牌（旧令牌、客户端令牌）按角色计算
+            mask = rolePermissions.maskOf(tokenUser.getRoles() != null ? tokenUser.getRoles() : tokenUser.getRole());
+        }
+
+        Permission required = resolve(permission);
+        return required != null && required.isGranted(mask);
+    }
+
+    /**
+     * 未知的权限名按无权限处理，避免 valueOf 抛出异常变成 500
+     */
+    private Permission resolve(Object permission) {
+        if (permission instanceof Permission p) {
+            return p;
+        }
+        if (permission == null) {
+            return null;
+        }
+        try {
+            return Permission.valueOf(permission.toString());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown permission in hasPermission expression: {}", permission);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package net.bbq.falsework.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.bbq.falsework.util.VegasLimit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 按路由分组的自适应并发限制（负载削减），在 Spring Security 过滤器链之前执行，
+ * 被拒绝的请求不做令牌解析，也不会在 Tomcat 线程池中排队。超出上限时直接返回 503。
+ *
+ * 由 ConcurrencyLimitConfig 注册，不是 @Component，避免被重复注册为 Servlet 过滤器。
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String REJECTED_BODY =
+            "{\"code\":503,\"message\":\"服务繁忙，请稍后重试\"}";
+
+    /**
+     * 路由分组：路径以任一前缀开头的请求共享同一个并发上限
+     */
+    public record RouteGroup(String name, List<String> pathPrefixes, VegasLimit limit) {
+
+        boolean matches(String path) {
+            for (String prefix : pathPrefixes) {
+                if (path.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final List<RouteGroup> groups;
+    private final VegasLimit defaultLimit;
+
+    public ConcurrencyLimitFilter(List<RouteGroup> groups, VegasLimit defaultLimit) {
+        this.groups = groups;
+        this.defaultLimit = defaultLimit;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        // 按应用内路径匹配：getRequestURI() 含 context path，部署在子路径下时前缀永远匹配不上
+        String path = request.getServletPath();
+        if (request.getPathInfo() != null) {
+            path = path + request.getPathInfo();
+        }
+        VegasLimit limit = limitFor(path);
+        int inFlight = limit.tryAcquire();
+        if (inFlight < 0) {
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = isOverloadStatus(response.getStatus());
+        } finally {
+            if (request.isAsyncStarted()) {
+                // SSE 等异步响应：请求线程已归还，连接时长不计入样本
+                limit.release();
+            } else {
+                limit.release(System.nanoTime() - start, inFlight, dropped);
+            }
+        }
+    }
+
+    /**
+     * 只有下游故障或超时才视为过载信号；503 是业务上的主动拒绝（如变更订阅已满），不应压低上限
+     */
+    private static boolean isOverloadStatus(int status) {
+        return status == HttpStatus.INTERNAL_SERVER_ERROR.value()
+                || status == HttpStatus.BAD_GATEWAY.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value();
+    }
+
+    private VegasLimit limitFor(String path) {
+        for (RouteGroup group : groups) {
+            if (group.matches(path)) {
+                return group.limit();
+            }
+        }
+        return defaultLimit;
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(REJECTED_BODY);
+    }
+}
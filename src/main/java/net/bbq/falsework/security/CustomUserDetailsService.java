@@ -4,14 +4,11 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import lombok.RequiredArgsConstructor;
 import net.bbq.falsework.entity.User;
 import net.bbq.falsework.mapper.UserMapper;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
@@ -32,7 +29,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getUsername())
                 .password(user.getPassword())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
+                .authorities(RoleAuthorities.of(user.getRoles()))
                 .build();
     }
 
@@ -49,27 +46,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getUsername())
                 .password(user.getPassword())
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")))
-                .build();
-    }
-
-    /**
-     * 根据客户端密钥加载用户（用于客户端密钥认证）
-     */
-    public UserDetails loadUserByClientSecret(String clientSecret) throws UsernameNotFoundException {
-        User user = userMapper.selectOne(
-                new LambdaQueryWrapper<User>()
-                        .eq(User::getClientSecret, clientSecret)
-        );
-
-        if (user == null) {
-            throw new UsernameNotFoundException("User not found with client secret");
-        }
-
-        return org.springframework.security.core.userdetails.User.builder()
-                .username(user.getUsername())
-                .password(user.getPassword())  // 密码不重要，因为我们使用客户端密钥
-                .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_CLIENT")))
+                .authorities(RoleAuthorities.of(user.getRoles()))
                 .build();
     }
 }
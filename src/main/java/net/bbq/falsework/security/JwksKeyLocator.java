@@ -0,0 +1,99 @@
+package net.bbq.falsework.security;
+
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.Key;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 供下游服务使用的 JWKS 验签密钥定位器：从远程 /.well-known/jwks.json 拉取公钥并按 kid 缓存，
+ * 缓存过期或遇到未知 kid（密钥轮换）时重新拉取，两次拉取之间至少间隔 minRefreshInterval。
+ *
+ * <pre>
+ * JwtParser parser = Jwts.parser()
+ *         .keyLocator(new JwksKeyLocator(URI.create("http://auth/.well-known/jwks.json")))
+ *         .build();
+ * </pre>
+ */
+@Slf4j
+public class JwksKeyLocator extends LocatorAdapter<Key> {
+
+    private final URI jwksUri;
+    private final Duration cacheTtl;
+    private final Duration minRefreshInterval;
+    private final HttpClient httpClient;
+
+    private volatile Map<String, Key> keys = Map.of();
+    private volatile long fetchedAt;
+
+    public JwksKeyLocator(URI jwksUri) {
+        this(jwksUri, Duration.ofMinutes(10), Duration.ofSeconds(30));
+    }
+
+    public JwksKeyLocator(URI jwksUri, Duration cacheTtl, Duration minRefreshInterval) {
+        this.jwksUri = jwksUri;
+        this.cacheTtl = cacheTtl;
+        this.minRefreshInterval = minRefreshInterval;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(3))
+                .build();
+    }
+
+    @Override
+    protected Key locate(ProtectedHeader header) {
+        String kid = header.getKeyId();
+        long age = System.currentTimeMillis() - fetchedAt;
+
+        Key key = kid != null ? keys.get(kid) : null;
+        if (key != null && age < cacheTtl.toMillis()) {
+            return key;
+        }
+
+        if (age >= minRefreshInterval.toMillis()) {
+            refresh();
+            key = kid != null ? keys.get(kid) : null;
+        }
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown JWT key id: " + kid);
+        }
+        return key;
+    }
+
+    private synchronized void refresh() {
+        if (System.currentTimeMillis() - fetchedAt < minRefreshInterval.toMillis()) {
+            return;
+        }
+        try {
+            HttpRequest request = HttpRequest.newBuilder(jwksUri)
+                    .timeout(Duration.ofSeconds(3))
+                    .GET()
+                    .build();
+            String body = httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            JwkSet jwkSet = Jwks.setParser().build().parse(body);
+
+            Map<String, Key> loaded = new HashMap<>();
+            for (Jwk<?> jwk : jwkSet) {
+                loaded.put(jwk.getId(), jwk.toKey());
+            }
+            this.keys = Map.copyOf(loaded);
+            log.debug("Loaded {} keys from {}", loaded.size(), jwksUri);
+        } catch (Exception e) {
+            // 拉取失败时继续使用旧的缓存
+            log.warn("Failed to fetch JWKS from {}", jwksUri, e);
+        } finally {
+            this.fetchedAt = System.currentTimeMillis();
+        }
+    }
+}
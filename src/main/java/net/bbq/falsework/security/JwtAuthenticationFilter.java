@@ -7,24 +7,49 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider tokenProvider;
-    private final net.bbq.falsework.service.TokenService tokenService;
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /** 公开接口不做任何令牌处理 */
+    private static final String[] PUBLIC_PATH_PREFIXES = {
+            "/api/auth/",
+            "/doc.html",
+            "/swagger-ui/",
+            "/v3/api-docs",
+            "/swagger-resources",
+            "/webjars/",
+            "/.well-known/"
+    };
+
+    private final AccessTokenResolver tokenResolver;
+
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // 按应用内路径匹配：getRequestURI() 含 context path，部署在子路径下时前缀永远匹配不上
+        String path = request.getServletPath();
+        if (request.getPathInfo() != null) {
+            path = path + request.getPathInfo();
+        }
+        for (String prefix : PUBLIC_PATH_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -35,38 +60,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(token)) {
-                // 首先尝试使用 TokenService 验证 UUID token
-                net.bbq.falsework.dto.TokenUser tokenUser = tokenService.getUserByToken(token);
+            if (token != null) {
+                net.bbq.falsework.dto.TokenUser tokenUser = tokenResolver.resolve(token);
 
                 if (tokenUser != null) {
-                    // UUID token 验证成功
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    tokenUser.getUserId(),
-                                    null,
-                                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + tokenUser.getRole()))
-                            );
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-
-                    log.debug("Set Authentication for user: {}, role: {} (UUID token)", tokenUser.getUsername(), tokenUser.getRole());
-                } else if (tokenProvider.validateToken(token)) {
-                    // 尝试使用 JwtTokenProvider 验证 JWT token
-                    Long userId = tokenProvider.getUserIdFromToken(token);
-                    String username = tokenProvider.getUsernameFromToken(token);
-                    String role = tokenProvider.getRoleFromToken(token);
-
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    userId,
-                                    null,
-                                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
-                            );
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    TokenAuthentication authentication = new TokenAuthentication(
+                            tokenUser,
+                            RoleAuthorities.of(tokenUser),
+                            detailsSource.buildDetails(request)
+                    );
                     SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                    log.debug("Set Authentication for user: {}, role: {} (JWT token)", username, role);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Set Authentication for user: {}, roles: {}", tokenUser.getUsername(), tokenUser.getRoles());
+                    }
                 }
             }
         } catch (Exception ex) {
@@ -78,8 +85,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7);
+        if (bearerToken != null && bearerToken.length() > BEARER_PREFIX.length()
+                && bearerToken.startsWith(BEARER_PREFIX)) {
+            return bearerToken.substring(BEARER_PREFIX.length());
         }
         return null;
     }
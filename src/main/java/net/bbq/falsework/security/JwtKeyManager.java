@@ -0,0 +1,202 @@
+package net.bbq.falsework.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JWT 签名密钥管理。
+ * HS256：使用 jwt.secret 派生的对称密钥（默认，兼容旧配置）；
+ * ES256 / EdDSA：从 jwt.key-locations 加载 PEM 密钥，文件名即 kid。包含私钥的文件可用于签名，
+ * 只包含公钥的文件仅用于验签（轮换后保留的旧密钥）。验签时按令牌头中的 kid 查找公钥。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtKeyManager extends LocatorAdapter<Key> {
+
+    private static final Pattern PEM_BLOCK =
+            Pattern.compile("-----BEGIN ([A-Z ]+)-----([^-]+)-----END \\1-----");
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationMustBeLongEnough}")
+    private String jwtSecret;
+
+    @Value("${jwt.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${jwt.key-locations:}")
+    private String[] keyLocations;
+
+    @Value("${jwt.active-kid:}")
+    private String activeKid;
+
+    private SecretKey hmacKey;
+    private SignatureAlgorithm signatureAlgorithm;
+    private PrivateKey signingKey;
+    private String signingKid;
+
+    /** kid -> 验签公钥 */
+    private final Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+
+    private String jwksJson = "{\"keys\":[]}";
+
+    @PostConstruct
+    public void init() throws IOException, GeneralSecurityException {
+        if ("HS256".equalsIgnoreCase(algorithm)) {
+            this.hmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        this.signatureAlgorithm = switch (algorithm.toUpperCase()) {
+            case "ES256" -> Jwts.SIG.ES256;
+            case "EDDSA" -> Jwts.SIG.EdDSA;
+            default -> throw new IllegalStateException("Unsupported jwt.algorithm: " + algorithm);
+        };
+
+        Map<String, PrivateKey> privateKeys = new LinkedHashMap<>();
+        for (String location : keyLocations) {
+            if (StringUtils.hasText(location)) {
+                loadKey(location.trim(), privateKeys);
+            }
+        }
+
+        if (privateKeys.isEmpty() && !verificationKeys.isEmpty()) {
+            // 只配置了验签公钥时不能退回临时密钥，否则本节点签发的令牌其他节点都无法验证
+            throw new IllegalStateException("jwt.key-locations contains only public keys, "
+                    + "a private key for jwt.active-kid is required");
+        }
+
+        if (privateKeys.isEmpty()) {
+            // 完全未配置密钥时生成临时密钥：重启后已签发的令牌失效，多节点部署必须配置密钥文件
+            KeyPair keyPair = generateKeyPair();
+            String kid = Jwks.builder().key(keyPair.getPublic()).idFromThumbprint().build().getId();
+            privateKeys.put(kid, keyPair.getPrivate());
+            verificationKeys.put(kid, keyPair.getPublic());
+            log.warn("No jwt.key-locations configured, generated ephemeral {} key {}", algorithm, kid);
+        }
+
+        this.signingKid = StringUtils.hasText(activeKid) ? activeKid : privateKeys.keySet().iterator().next();
+        this.signingKey = privateKeys.get(signingKid);
+        if (signingKey == null) {
+            throw new IllegalStateException("No private key found for jwt.active-kid: " + signingKid);
+        }
+
+        List<String> jwks = new ArrayList<>();
+        verificationKeys.forEach((kid, publicKey) -> {
+            PublicJwk<?> jwk = Jwks.builder().key(publicKey).id(kid).build();
+            jwks.add(Jwks.json(jwk));
+        });
+        this.jwksJson = "{\"keys\":[" + String.join(",", jwks) + "]}";
+
+        log.info("JWT signing with {} key {}, {} verification keys", algorithm, signingKid, verificationKeys.size());
+    }
+
+    /**
+     * 是否使用非对称密钥签名
+     */
+    public boolean isAsymmetric() {
+        return hmacKey == null;
+    }
+
+    public SecretKey getHmacKey() {
+        return hmacKey;
+    }
+
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    public String getSigningKid() {
+        return signingKid;
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * 公开的验签密钥集合（JWKS），对称密钥模式下为空
+     */
+    public String getJwksJson() {
+        return jwksJson;
+    }
+
+    @Override
+    protected Key locate(ProtectedHeader header) {
+        if (!isAsymmetric()) {
+            return hmacKey;
+        }
+        String kid = header.getKeyId();
+        if (kid == null && verificationKeys.size() == 1) {
+            return verificationKeys.values().iterator().next();
+        }
+        PublicKey key = kid != null ? verificationKeys.get(kid) : null;
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown JWT key id: " + kid);
+        }
+        return key;
+    }
+
+    private void loadKey(String location, Map<String, PrivateKey> privateKeys)
+            throws IOException, GeneralSecurityException {
+        Resource resource = resourceLoader.getResource(location);
+        String kid = StringUtils.stripFilenameExtension(resource.getFilename());
+        String pem = resource.getContentAsString(StandardCharsets.US_ASCII);
+        KeyFactory keyFactory = KeyFactory.getInstance(signatureAlgorithm == Jwts.SIG.ES256 ? "EC" : "Ed25519");
+
+        Matcher matcher = PEM_BLOCK.matcher(pem);
+        while (matcher.find()) {
+            byte[] der = Base64.getMimeDecoder().decode(matcher.group(2));
+            switch (matcher.group(1)) {
+                case "PRIVATE KEY" -> privateKeys.put(kid, keyFactory.generatePrivate(new PKCS8EncodedKeySpec(der)));
+                case "PUBLIC KEY" -> verificationKeys.put(kid, keyFactory.generatePublic(new X509EncodedKeySpec(der)));
+                default -> log.warn("Ignoring PEM block {} in {}", matcher.group(1), location);
+            }
+        }
+
+        if (privateKeys.containsKey(kid) && !verificationKeys.containsKey(kid)) {
+            throw new IllegalStateException("Key file " + location + " must contain the PUBLIC KEY block");
+        }
+    }
+
+    private KeyPair generateKeyPair() {
+        if (signatureAlgorithm == Jwts.SIG.ES256) {
+            return Jwts.SIG.ES256.keyPair().build();
+        }
+        return Jwks.CRV.Ed25519.keyPair().build();
+    }
+}
@@ -1,24 +1,29 @@
 package net.bbq.falsework.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.bbq.falsework.dto.TokenUser;
+import net.bbq.falsework.util.TokenIdGenerator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationMustBeLongEnough}")
-    private String jwtSecret;
+    /** 令牌类型声明：访问令牌不带该声明，客户端令牌为 client，刷新令牌为 refresh */
+    static final String CLAIM_TYPE = "type";
+    static final String TYPE_CLIENT = "client";
+    static final String TYPE_REFRESH = "refresh";
+
+    private final JwtKeyManager keyManager;
 
     @Value("${jwt.expiration:86400000}")  // 默认24小时
     private long jwtExpiration;
@@ -26,21 +31,33 @@ public class JwtTokenProvider {
     @Value("${jwt.refresh-expiration:604800000}")  // 默认7天
     private long jwtRefreshExpiration;
 
-    private SecretKey key;
+    private JwtParser parser;
 
     @PostConstruct
     public void init() {
-        this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        // 验签密钥按令牌头中的 kid 查找，支持密钥轮换
+        this.parser = Jwts.parser()
+                .keyLocator(keyManager)
+                .build();
     }
 
     /**
      * 生成访问令牌
      */
     public String generateToken(Long userId, String username, String role) {
+        return generateToken(new TokenUser(userId, username, role));
+    }
+
+    /**
+     * 生成访问令牌，携带全部角色和权限掩码
+     */
+    public String generateToken(TokenUser tokenUser) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("userId", userId);
-        claims.put("role", role);
-        return createToken(claims, username, jwtExpiration);
+        claims.put("userId", tokenUser.getUserId());
+        claims.put("role", tokenUser.getRole());
+        claims.put("roles", tokenUser.getRoles());
+        claims.put("perms", tokenUser.getPermissions());
+        return createToken(claims, tokenUser.getUsername(), jwtExpiration);
     }
 
     /**
@@ -49,7 +66,7 @@ public class JwtTokenProvider {
     public String generateRefreshToken(Long userId, String username) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
-        claims.put("type", "refresh");
+        claims.put(CLAIM_TYPE, TYPE_REFRESH);
         return createToken(claims, username, jwtRefreshExpiration);
     }
 
@@ -60,7 +77,7 @@ public class JwtTokenProvider {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("clientId", clientId);
-        claims.put("type", "client");
+        claims.put(CLAIM_TYPE, TYPE_CLIENT);
         claims.put("role", "CLIENT");
         return createToken(claims, clientId, jwtExpiration);
     }
@@ -69,13 +86,20 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .claims(claims)
+                .id(TokenIdGenerator.next(16))
                 .subject(subject)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(key)
-                .compact();
+                .expiration(expiryDate);
+
+        if (keyManager.isAsymmetric()) {
+            builder.header().keyId(keyManager.getSigningKid()).and()
+                    .signWith(keyManager.getSigningKey(), keyManager.getSignatureAlgorithm());
+        } else {
+            builder.signWith(keyManager.getHmacKey());
+        }
+        return builder.compact();
     }
 
     /**
@@ -106,10 +130,7 @@ public class JwtTokenProvider {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
+            parser.parseSignedClaims(token);
             return true;
         } catch (MalformedJwtException ex) {
             ex.printStackTrace();
@@ -146,12 +167,35 @@ public class JwtTokenProvider {
         }
     }
 
+    /**
+     * 验签并解析令牌，令牌无效时返回 null（不打印堆栈，用于请求路径）
+     */
+    public Claims parseClaims(String token) {
+        try {
+            return getClaimsFromToken(token);
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.debug("Invalid JWT token: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 是否为访问令牌（用户访问令牌或客户端令牌），刷新令牌不能用于访问受保护的接口
+     */
+    public boolean isAccessToken(Claims claims) {
+        String type = claims.get(CLAIM_TYPE, String.class);
+        return type == null || TYPE_CLIENT.equals(type);
+    }
+
+    /**
+     * 是否为刷新令牌
+     */
+    public boolean isRefreshToken(Claims claims) {
+        return TYPE_REFRESH.equals(claims.get(CLAIM_TYPE, String.class));
+    }
+
     public Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /**
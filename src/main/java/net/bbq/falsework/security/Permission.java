@@ -0,0 +1,24 @@
+package net.bbq.falsework.security;
+
+/**
+ * 权限目录。每个权限占用 long 掩码中的一位（按声明顺序），最多 64 个，
+ * 新增权限只能追加在末尾，否则已签发令牌中的掩码含义会改变。
+ */
+public enum Permission {
+
+    USER_READ,
+    USER_WRITE,
+    USER_DELETE,
+    TOKEN_INTROSPECT,
+    CLIENT_WRITE;
+
+    private final long mask = 1L << ordinal();
+
+    public long mask() {
+        return mask;
+    }
+
+    public boolean isGranted(long permissions) {
+        return (permissions & mask) != 0;
+    }
+}
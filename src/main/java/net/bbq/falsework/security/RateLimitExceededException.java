@@ -0,0 +1,18 @@
+package net.bbq.falsework.security;
+
+import lombok.Getter;
+
+/**
+ * 请求超过限流阈值
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    /** 建议客户端重试的等待时间（秒） */
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,57 @@
+package net.bbq.falsework.security;
+
+import net.bbq.falsework.dto.TokenUser;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 将角色字符串（t_user.roles，逗号分隔，如 "USER,ADMIN"）解析为权限集合。
+ * 解析结果按原始字符串缓存并复用，请求路径上不再重复解析和分配 SimpleGrantedAuthority。
+ */
+public final class RoleAuthorities {
+
+    private static final Map<String, List<GrantedAuthority>> CACHE = new ConcurrentHashMap<>();
+
+    private RoleAuthorities() {
+    }
+
+    public static List<GrantedAuthority> of(String roles) {
+        if (roles == null) {
+            return List.of();
+        }
+        return CACHE.computeIfAbsent(roles, RoleAuthorities::parse);
+    }
+
+    public static List<GrantedAuthority> of(TokenUser tokenUser) {
+        return of(tokenUser.getRoles() != null ? tokenUser.getRoles() : tokenUser.getRole());
+    }
+
+    /**
+     * 取第一个角色作为主角色
+     */
+    public static String primaryRole(String roles) {
+        if (!StringUtils.hasText(roles)) {
+            return "USER";
+        }
+        int idx = roles.indexOf(',');
+        return (idx < 0 ? roles : roles.substring(0, idx)).trim();
+    }
+
+    private static List<GrantedAuthority> parse(String roles) {
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+        for (String role : StringUtils.commaDelimitedListToStringArray(roles)) {
+            role = role.trim();
+            if (!role.isEmpty()) {
+                authorities.add(new SimpleGrantedAuthority(role.startsWith("ROLE_") ? role : "ROLE_" + role));
+            }
+        }
+        return List.copyOf(authorities);
+    }
+}
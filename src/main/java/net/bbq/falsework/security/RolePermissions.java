@@ -0,0 +1,84 @@
+package net.bbq.falsework.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 角色到权限掩码的映射，配置项 security.role-permissions.&lt;ROLE&gt;=USER_READ,USER_WRITE（* 表示全部权限）。
+ * 启动时解析全部配置，权限名写错时启动失败；结果按角色字符串缓存，签发令牌时计算一次并写入 TokenUser / JWT。
+ */
+@Component
+@RequiredArgsConstructor
+public class RolePermissions {
+
+    private static final String PROPERTY_PREFIX = "security.role-permissions";
+
+    private final Environment environment;
+
+    /** 角色（大写）-> 权限掩码，启动后只读 */
+    private Map<String, Long> roleMasks = Map.of();
+
+    private final Map<String, Long> cache = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Map<String, String> mapping = Binder.get(environment)
+                .bind(PROPERTY_PREFIX, Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        Map<String, Long> masks = new HashMap<>();
+        mapping.forEach((role, permissions) -> masks.put(role.toUpperCase(Locale.ROOT), parse(role, permissions)));
+        this.roleMasks = Map.copyOf(masks);
+    }
+
+    private static long parse(String role, String permissions) {
+        long mask = 0L;
+        for (String name : StringUtils.commaDelimitedListToStringArray(permissions)) {
+            name = name.trim();
+            if ("*".equals(name)) {
+                return -1L;
+            }
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                mask |= Permission.valueOf(name).mask();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException(
+                        "Unknown permission '" + name + "' in " + PROPERTY_PREFIX + "." + role, e);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 计算角色字符串（逗号分隔）对应的权限掩码
+     */
+    public long maskOf(String roles) {
+        if (roles == null) {
+            return 0L;
+        }
+        return cache.computeIfAbsent(roles, this::compute);
+    }
+
+    private long compute(String roles) {
+        long mask = 0L;
+        for (String role : StringUtils.commaDelimitedListToStringArray(roles)) {
+            role = role.trim();
+            if (role.startsWith("ROLE_")) {
+                role = role.substring(5);
+            }
+            mask |= roleMasks.getOrDefault(role.toUpperCase(Locale.ROOT), 0L);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,68 @@
+package net.bbq.falsework.security;
+
+import net.bbq.falsework.dto.TokenUser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * 令牌认证结果。直接引用 RoleAuthorities 中共享的不可变权限集合，
+ * 不像 UsernamePasswordAuthenticationToken 那样每次复制一份权限列表。
+ * principal 仍为用户ID，与原有实现保持一致。
+ */
+public class TokenAuthentication implements Authentication {
+
+    private final TokenUser tokenUser;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private final Object details;
+    private boolean authenticated = true;
+
+    public TokenAuthentication(TokenUser tokenUser, Collection<? extends GrantedAuthority> authorities, Object details) {
+        this.tokenUser = tokenUser;
+        this.authorities = authorities;
+        this.details = details;
+    }
+
+    public TokenUser getTokenUser() {
+        return tokenUser;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public Object getDetails() {
+        return details;
+    }
+
+    @Override
+    public Object getPrincipal() {
+        return tokenUser.getUserId();
+    }
+
+    @Override
+    public boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    @Override
+    public void setAuthenticated(boolean authenticated) {
+        if (authenticated) {
+            throw new IllegalArgumentException("Cannot set this token to trusted");
+        }
+        this.authenticated = false;
+    }
+
+    @Override
+    public String getName() {
+        return String.valueOf(tokenUser.getUserId());
+    }
+}
@@ -1,6 +1,7 @@
 package net.bbq.falsework.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.bbq.falsework.dto.TokenUser;
@@ -10,8 +11,11 @@ import net.bbq.falsework.dto.auth.LoginRequest;
 import net.bbq.falsework.dto.auth.RegisterRequest;
 import net.bbq.falsework.entity.User;
 import net.bbq.falsework.mapper.UserMapper;
-import net.bbq.falsework.security.CustomUserDetailsService;
+import net.bbq.falsework.security.AccessTokenResolver;
+import net.bbq.falsework.security.AuthRateLimiter;
 import net.bbq.falsework.security.JwtTokenProvider;
+import net.bbq.falsework.security.RoleAuthorities;
+import net.bbq.falsework.security.RolePermissions;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,9 +23,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Slf4j
 @Service
@@ -31,9 +35,14 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final UserMapper userMapper;
     private final JwtTokenProvider tokenProvider;
-    private final CustomUserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
     private final TokenService tokenService;
+    private final TokenRevocationService revocationService;
+    private final AccessTokenResolver tokenResolver;
+    private final AuthRateLimiter rateLimiter;
+    private final RolePermissions rolePermissions;
+    private final UserOutboxService outboxService;
+    private final ClientRegistryService clientRegistry;
 
     @Value("${token.expiration:86400}")
     private long tokenExpiration;
@@ -42,6 +51,9 @@ public class AuthService {
      * 用户名密码登录
      */
     public AuthResponse login(LoginRequest request) {
+        // 限流检查必须在 BCrypt 校验之前
+        rateLimiter.checkLogin(request.getUsername());
+
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsername(),
@@ -55,11 +67,10 @@ public class AuthService {
                         .eq(User::getUsername, userDetails.getUsername())
         );
 
-        // 创建TokenUser对象
-        TokenUser tokenUser = new TokenUser(user.getId(), user.getUsername(), "USER");
+        // 角色来自 t_user.roles
+        TokenUser tokenUser = toTokenUser(user);
 
-        // 生成UUID作为token，并保存到Redis
-        String accessToken = tokenService.generateAccessToken(tokenUser);
+        String accessToken = issueAccessToken(tokenUser);
         String refreshToken = tokenService.generateRefreshToken(user.getId(), user.getUsername());
 
         log.info("User {} logged in successfully", user.getUsername());
@@ -68,47 +79,42 @@ public class AuthService {
                 accessToken,
                 "Bearer",
                 refreshToken,
-                tokenExpiration,
+                accessTokenExpiresIn(),
                 user.getId(),
                 user.getUsername(),
-                "USER"
+                tokenUser.getRoles()
         );
     }
 
     /**
-     * 客户端密钥登录
+     * 客户端密钥登录：按 clientId 查注册表（本地缓存）并用 HMAC 校验密钥
      */
     public AuthResponse clientLogin(ClientLoginRequest request) {
-        UserDetails userDetails = userDetailsService.loadUserByClientSecret(request.getClientSecret());
-
-        User user = userMapper.selectOne(
-                new LambdaQueryWrapper<User>()
-                        .eq(User::getUsername, userDetails.getUsername())
-        );
+        rateLimiter.checkClientLogin(request.getClientId());
 
-        if (user == null) {
-            throw new RuntimeException("Invalid client credentials");
-        }
+        ClientRegistryService.VerifiedClient client = clientRegistry
+                .verify(request.getClientId(), request.getClientSecret())
+                .orElseThrow(() -> new RuntimeException("Invalid client credentials"));
 
         String accessToken = tokenProvider.generateClientToken(
-                request.getClientId(),
-                user.getId()
+                client.clientId(),
+                client.userId()
         );
 
         String refreshToken = tokenProvider.generateRefreshToken(
-                user.getId(),
-                user.getUsername()
+                client.userId(),
+                client.username()
         );
 
-        log.info("Client {} logged in successfully", request.getClientId());
+        log.info("Client {} logged in successfully", client.clientId());
 
         return new AuthResponse(
                 accessToken,
                 "Bearer",
                 refreshToken,
                 tokenProvider.getJwtExpiration() / 1000,
-                user.getId(),
-                user.getUsername(),
+                client.userId(),
+                client.username(),
                 "CLIENT"
         );
     }
@@ -117,23 +123,20 @@ public class AuthService {
      * 刷新令牌
      */
     public AuthResponse refreshToken(String refreshToken) {
-        // 验证refresh token是否在Redis中存在
-        TokenUser tokenUser = tokenService.getUserByRefreshToken(refreshToken);
-        if (tokenUser == null) {
-            throw new RuntimeException("Invalid refresh token");
-        }
+        rateLimiter.checkRefresh();
+
+        // 原子轮换刷新令牌，重放已轮换的令牌会吊销整个令牌家族
+        TokenService.RefreshRotation rotation = tokenService.rotateRefreshToken(refreshToken);
+        String newRefreshToken = rotation.refreshToken();
 
-        User user = userMapper.selectById(tokenUser.getUserId());
+        User user = userMapper.selectById(rotation.tokenUser().getUserId());
         if (user == null) {
             throw new RuntimeException("User not found");
         }
 
-        // 生成新的访问令牌和刷新令牌
-        String newAccessToken = tokenService.generateAccessToken(tokenUser);
-        String newRefreshToken = tokenService.generateRefreshToken(user.getId(), user.getUsername());
-
-        // 删除旧的刷新令牌
-        tokenService.deleteRefreshToken(refreshToken);
+        // 使用数据库中最新的角色生成新的访问令牌
+        TokenUser tokenUser = toTokenUser(user);
+        String newAccessToken = issueAccessToken(tokenUser);
 
         log.info("Token refreshed for user {}", user.getUsername());
 
@@ -141,17 +144,20 @@ public class AuthService {
                 newAccessToken,
                 "Bearer",
                 newRefreshToken,
-                tokenExpiration,
+                accessTokenExpiresIn(),
                 user.getId(),
                 user.getUsername(),
-                tokenUser.getRole()
+                tokenUser.getRoles()
         );
     }
 
     /**
      * 用户注册
      */
+    @Transactional
     public AuthResponse register(RegisterRequest request) {
+        rateLimiter.checkRegister();
+
         // 验证密码确认
         if (!request.getPassword().equals(request.getConfirmPassword())) {
             throw new RuntimeException("两次输入的密码不一致");
@@ -180,32 +186,80 @@ public class AuthService {
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
         user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setClientSecret(generateClientSecret());
         user.setEnabled(true);
         user.setRoles("USER");
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
         userMapper.insert(user);
+        outboxService.recordCreated(user);
 
         log.info("User {} registered successfully", user.getUsername());
 
-        // 注册成功后自动登录，返回UUID token
-        TokenUser tokenUser = new TokenUser(user.getId(), user.getUsername(), "USER");
-        String accessToken = tokenService.generateAccessToken(tokenUser);
+        // 注册成功后自动登录
+        TokenUser tokenUser = toTokenUser(user);
+        String accessToken = issueAccessToken(tokenUser);
         String refreshToken = tokenService.generateRefreshToken(user.getId(), user.getUsername());
 
         return new AuthResponse(
                 accessToken,
                 "Bearer",
                 refreshToken,
-                tokenExpiration,
+                accessTokenExpiresIn(),
                 user.getId(),
                 user.getUsername(),
-                "USER"
+                tokenUser.getRoles()
         );
     }
 
+    /**
+     * 注销：不透明令牌直接从Redis删除，JWT 令牌加入吊销列表直到过期。
+     * 同时传入刷新令牌时一并吊销：不透明刷新令牌吊销整个令牌家族，JWT 刷新令牌加入吊销列表
+     */
+    public void logout(String accessToken, String refreshToken) {
+        Claims claims = tokenProvider.parseClaims(accessToken);
+        if (claims != null) {
+            revocationService.revoke(claims.getId(), claims.getExpiration().getTime());
+        } else {
+            tokenService.deleteToken(accessToken);
+        }
+
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return;
+        }
+        Claims refreshClaims = tokenProvider.parseClaims(refreshToken);
+        if (refreshClaims != null) {
+            if (tokenProvider.isRefreshToken(refreshClaims)) {
+                revocationService.revoke(refreshClaims.getId(), refreshClaims.getExpiration().getTime());
+            }
+        } else {
+            tokenService.revokeRefreshFamily(refreshToken);
+        }
+    }
+
+    /**
+     * 签发访问令牌：无状态模式下签发JWT，否则生成随机令牌并保存到Redis
+     */
+    private String issueAccessToken(TokenUser tokenUser) {
+        if (tokenResolver.isStateless()) {
+            return tokenProvider.generateToken(tokenUser);
+        }
+        return tokenService.generateAccessToken(tokenUser);
+    }
+
+    private TokenUser toTokenUser(User user) {
+        String roles = user.getRoles() != null ? user.getRoles() : "USER";
+        return new TokenUser(user.getId(), user.getUsername(), RoleAuthorities.primaryRole(roles), roles,
+                rolePermissions.maskOf(roles));
+    }
+
+    /**
+     * 访问令牌有效期（秒）
+     */
+    private long accessTokenExpiresIn() {
+        return tokenResolver.isStateless() ? tokenProvider.getJwtExpiration() / 1000 : tokenExpiration;
+    }
+
     /**
      * 检查用户名是否已存在
      */
@@ -225,12 +279,4 @@ public class AuthService {
                         .eq(User::getEmail, email)
         ) > 0;
     }
-
-    /**
-     * 生成客户端密钥
-     */
-    private String generateClientSecret() {
-        return UUID.randomUUID().toString().replace("-", "") +
-               UUID.randomUUID().toString().replace("-", "");
-    }
 }
@@ -0,0 +1,210 @@
+package net.bbq.falsework.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bbq.falsework.entity.Client;
+import net.bbq.falsework.mapper.ClientMapper;
+import net.bbq.falsework.mapper.UserMapper;
+import net.bbq.falsework.util.TokenIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 客户端注册表（t_client）。客户端密钥是 256 位随机值，不需要 BCrypt 这类慢哈希抵御字典攻击，
+ * 数据库只保存以 client.secret-pepper 为密钥的 HMAC-SHA256，校验为一次 HMAC 加常量时间比较。
+ *
+ * 按 clientId 查到的记录在本地缓存 client.cache.ttl 毫秒，命中时登录不访问数据库；
+ * 本节点删除客户端立即失效，其他节点最多在 ttl 后生效。
+ * 不存在的 clientId 缓存 client.cache.negative-ttl 毫秒，避免用随机 clientId 持续打到数据库；
+ * 负缓存与正缓存分开存放，随机 clientId 填满负缓存不会挤掉已缓存的客户端。其他节点新建的客户端最多在 negative-ttl 后可用。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClientRegistryService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String CLIENT_ID_PREFIX = "client_";
+    private static final int CLIENT_ID_BYTES = 12;
+    /** 早期版本 application.properties 中的示例值，不能用于任何环境 */
+    private static final String PLACEHOLDER_PEPPER = "myClientSecretPepperChangeMeInProduction";
+
+    private final ClientMapper clientMapper;
+    private final UserMapper userMapper;
+
+    /** 没有默认值，必须由配置或环境变量 CLIENT_SECRET_PEPPER 提供 */
+    @Value("${client.secret-pepper:}")
+    private String pepper;
+
+    @Value("${client.cache.ttl:60000}")  // 毫秒，0 表示关闭
+    private long cacheTtl;
+
+    @Value("${client.cache.max-size:1000}")
+    private int cacheMaxSize;
+
+    @Value("${client.cache.negative-ttl:5000}")  // 毫秒，0 表示关闭
+    private long negativeCacheTtl;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    /** 不存在的 clientId -> 过期时间 */
+    private final Map<String, Long> negativeCache = new ConcurrentHashMap<>();
+
+    private ThreadLocal<Mac> macs;
+
+    /**
+     * clientId 不存在时仍计算一次 HMAC 并与之比较，校验本身的开销与密钥错误时相同。
+     * 是否查库、是否命中缓存仍会造成耗时差异，clientId 不是机密，不依赖这一点
+     */
+    private byte[] unknownClientHash;
+
+    private record Entry(byte[] secretHash, Long userId, String username, long expiresAt) {
+    }
+
+    /**
+     * 校验通过的客户端
+     */
+    public record VerifiedClient(String clientId, Long userId, String username) {
+    }
+
+    /**
+     * 新建的客户端，clientSecret 只在创建时返回一次
+     */
+    public record ProvisionedClient(String clientId, String clientSecret, Long userId) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (pepper == null || pepper.isBlank()) {
+            throw new IllegalStateException(
+                    "client.secret-pepper is not set; provide it via configuration or the CLIENT_SECRET_PEPPER environment variable");
+        }
+        if (PLACEHOLDER_PEPPER.equals(pepper)) {
+            throw new IllegalStateException("client.secret-pepper is still the example value; configure a random secret");
+        }
+        SecretKeySpec key = new SecretKeySpec(pepper.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.unknownClientHash = hmac(TokenIdGenerator.next());
+    }
+
+    /**
+     * 校验客户端ID和密钥，不匹配、客户端或所属用户被禁用时返回空
+     */
+    public Optional<VerifiedClient> verify(String clientId, String clientSecret) {
+        Entry entry = lookup(clientId);
+        boolean matches = MessageDigest.isEqual(hmac(clientSecret),
+                entry != null ? entry.secretHash() : unknownClientHash);
+        if (entry == null || !matches) {
+            return Optional.empty();
+        }
+        return Optional.of(new VerifiedClient(clientId, entry.userId(), entry.username()));
+    }
+
+    /**
+     * 为用户创建客户端，clientId 为空时自动生成
+     */
+    public ProvisionedClient provision(Long userId, String clientId) {
+        if (userMapper.selectById(userId) == null) {
+            throw new RuntimeException("用户不存在");
+        }
+        if (clientId == null || clientId.isBlank()) {
+            clientId = CLIENT_ID_PREFIX + TokenIdGenerator.next(CLIENT_ID_BYTES);
+        } else if (clientMapper.selectById(clientId) != null) {
+            throw new RuntimeException("客户端ID已存在");
+        }
+
+        String clientSecret = TokenIdGenerator.next();
+        Client client = new Client();
+        client.setClientId(clientId);
+        client.setSecretHash(HexFormat.of().formatHex(hmac(clientSecret)));
+        client.setUserId(userId);
+        client.setEnabled(true);
+        client.setCreatedAt(LocalDateTime.now());
+        try {
+            clientMapper.insert(client);
+        } catch (DuplicateKeyException e) {
+            // 上面的检查与插入之间被并发请求抢先
+            throw new RuntimeException("客户端ID已存在");
+        }
+        negativeCache.remove(clientId);
+
+        log.info("Provisioned client {} for user {}", clientId, userId);
+        return new ProvisionedClient(clientId, clientSecret, userId);
+    }
+
+    /**
+     * 删除客户端，已签发的令牌不受影响
+     */
+    public boolean delete(String clientId) {
+        cache.remove(clientId);
+        boolean deleted = clientMapper.deleteById(clientId) > 0;
+        if (deleted) {
+            log.info("Deleted client {}", clientId);
+        }
+        return deleted;
+    }
+
+    private Entry lookup(String clientId) {
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(clientId);
+        if (entry != null && entry.expiresAt() >= now) {
+            return entry;
+        }
+        Long missingUntil = negativeCache.get(clientId);
+        if (missingUntil != null && missingUntil >= now) {
+            return null;
+        }
+
+        entry = clientMapper.findActive(clientId)
+                .map(client -> new Entry(HexFormat.of().parseHex(client.getSecretHash()), client.getUserId(),
+                        client.getUsername(), now + cacheTtl))
+                .orElse(null);
+        if (entry == null) {
+            cache.remove(clientId);
+            if (negativeCacheTtl > 0) {
+                if (negativeCache.size() >= cacheMaxSize) {
+                    negativeCache.values().removeIf(expiresAt -> expiresAt < now);
+                    if (negativeCache.size() >= cacheMaxSize) {
+                        negativeCache.clear();
+                    }
+                }
+                negativeCache.put(clientId, now + negativeCacheTtl);
+            }
+        } else if (cacheTtl > 0) {
+            negativeCache.remove(clientId);
+            if (cache.size() >= cacheMaxSize) {
+                cache.values().removeIf(e -> e.expiresAt() < now);
+                if (cache.size() >= cacheMaxSize) {
+                    cache.clear();
+                }
+            }
+            cache.put(clientId, entry);
+        }
+        return entry;
+    }
+
+    private byte[] hmac(String secret) {
+        return macs.get().doFinal(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
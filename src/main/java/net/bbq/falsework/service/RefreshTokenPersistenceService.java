@@ -0,0 +1,113 @@
+package net.bbq.falsework.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bbq.falsework.dto.TokenUser;
+import net.bbq.falsework.entity.RefreshToken;
+import net.bbq.falsework.mapper.RefreshTokenMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * 刷新令牌持久化（token.refresh.persistent=true 时启用）。
+ * t_refresh_token 是刷新令牌的权威存储，令牌存储（Redis）作为其前面的写穿透缓存，
+ * Redis 清空或故障切换后可从数据库恢复，用户不会被全部登出。数据库只保存令牌的 SHA-256 摘要。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenPersistenceService {
+
+    private final RefreshTokenMapper refreshTokenMapper;
+
+    @Value("${token.refresh.persistent:false}")
+    private boolean enabled;
+
+    @Value("${token.refresh.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    @Value("${token.refresh.sweep-max-batches:100}")
+    private int sweepMaxBatches;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void save(String refreshToken, String familyId, TokenUser tokenUser, Duration ttl) {
+        RefreshToken entity = new RefreshToken();
+        entity.setTokenHash(hash(refreshToken));
+        entity.setFamilyId(familyId);
+        entity.setUserId(tokenUser.getUserId());
+        entity.setUsername(tokenUser.getUsername());
+        entity.setExpiresAt(LocalDateTime.now().plus(ttl));
+        entity.setCreatedAt(LocalDateTime.now());
+        refreshTokenMapper.insert(entity);
+    }
+
+    public Optional<RefreshToken> find(String refreshToken) {
+        return refreshTokenMapper.findValidByHash(hash(refreshToken), LocalDateTime.now());
+    }
+
+    public void delete(String refreshToken) {
+        refreshTokenMapper.deleteByHash(hash(refreshToken));
+    }
+
+    /**
+     * 轮换：删除旧令牌并写入同一家族的新令牌
+     */
+    @Transactional
+    public void rotate(String oldRefreshToken, String newRefreshToken, String familyId, TokenUser tokenUser, Duration ttl) {
+        refreshTokenMapper.deleteByHash(hash(oldRefreshToken));
+        save(newRefreshToken, familyId, tokenUser, ttl);
+    }
+
+    public void deleteFamily(String familyId) {
+        refreshTokenMapper.deleteByFamilyId(familyId);
+    }
+
+    public void deleteByUser(Long userId) {
+        refreshTokenMapper.deleteByUserId(userId);
+    }
+
+    /**
+     * 分批清理过期的刷新令牌，每批走 expires_at 索引，避免长事务和大范围锁
+     */
+    @Scheduled(fixedDelayString = "${token.refresh.sweep-interval:600000}")
+    public void sweepExpired() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        for (int i = 0; i < sweepMaxBatches; i++) {
+            int deleted = refreshTokenMapper.deleteExpired(now, sweepBatchSize);
+            total += deleted;
+            if (deleted < sweepBatchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Swept {} expired refresh tokens", total);
+        }
+    }
+
+    static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
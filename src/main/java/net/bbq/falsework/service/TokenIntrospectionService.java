@@ -0,0 +1,58 @@
+package net.bbq.falsework.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import net.bbq.falsework.dto.TokenIntrospection;
+import net.bbq.falsework.dto.TokenUser;
+import net.bbq.falsework.security.AccessTokenResolver;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 批量令牌内省，供内部网关一次校验多个令牌，代替逐个令牌调用受保护接口。
+ * 令牌存储只访问一次（MGET 或管道），JWT 在本地验签。
+ *
+ * 指标：token.introspect.latency，token.introspect.batch_size，token.introspect.tokens{active}
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenIntrospectionService {
+
+    private final AccessTokenResolver accessTokenResolver;
+    private final MeterRegistry meterRegistry;
+
+    private Timer latency;
+    private DistributionSummary batchSize;
+    private Counter active;
+    private Counter inactive;
+
+    @PostConstruct
+    public void init() {
+        this.latency = Timer.builder("token.introspect.latency")
+                .description("Batch introspection latency")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("token.introspect.batch_size")
+                .description("Tokens per introspection request")
+                .register(meterRegistry);
+        this.active = meterRegistry.counter("token.introspect.tokens", "active", "true");
+        this.inactive = meterRegistry.counter("token.introspect.tokens", "active", "false");
+    }
+
+    /**
+     * 结果与 tokens 顺序一致
+     */
+    public List<TokenIntrospection> introspect(List<String> tokens) {
+        batchSize.record(tokens.size());
+        List<TokenUser> users = latency.record(() -> accessTokenResolver.resolveAll(tokens));
+        long valid = users.stream().filter(user -> user != null).count();
+        active.increment(valid);
+        inactive.increment(tokens.size() - valid);
+        return users.stream().map(TokenIntrospection::of).toList();
+    }
+}
@@ -0,0 +1,65 @@
+package net.bbq.falsework.service;
+
+import net.bbq.falsework.dto.TokenUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地近缓存：记录最近成功读取的令牌，仅在令牌存储不可用时作为降级数据源。
+ * 条目在 ttl 后过期，因此在其他节点注销的令牌在降级期间最多继续有效 ttl 时长。
+ */
+@Component
+public class TokenNearCache {
+
+    @Value("${token.near-cache.ttl:60000}")  // 毫秒
+    private long ttl;
+
+    @Value("${token.near-cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(TokenUser tokenUser, long expiresAt) {
+    }
+
+    public void put(String token, TokenUser tokenUser) {
+        long now = System.currentTimeMillis();
+        Entry existing = entries.get(token);
+        if (existing != null && existing.expiresAt() - now > ttl / 2) {
+            // 热点令牌不必每次读取都刷新
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(token, new Entry(tokenUser, now + ttl));
+    }
+
+    public TokenUser get(String token) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(token, entry);
+            return null;
+        }
+        return entry.tokenUser();
+    }
+
+    public void remove(String token) {
+        entries.remove(token);
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() < now);
+        if (entries.size() >= maxSize) {
+            // 全部仍在有效期内时整体清空，近缓存只用于降级，丢失条目不影响正确性
+            entries.clear();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package net.bbq.falsework.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bbq.falsework.store.TokenStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 滑动过期：令牌被使用时延长其在令牌存储中的有效期。
+ * 同一个令牌在 renew-interval 内最多续期一次，续期请求先在本地合并，再由定时任务批量提交。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRenewalService {
+
+    private final TokenStore tokenStore;
+
+    @Value("${token.expiration:86400}")
+    private long tokenExpiration;
+
+    @Value("${token.sliding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${token.sliding.renew-interval:300}")  // 秒
+    private long renewInterval;
+
+    @Value("${token.sliding.batch-size:500}")
+    private int batchSize;
+
+    /** key -> 最近一次续期（或签发）的时间戳 */
+    private final Map<String, Long> lastRenewed = new ConcurrentHashMap<>();
+
+    /** 等待批量续期的key -> userId（0 表示未知） */
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    private volatile long lastCleanup = System.currentTimeMillis();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录新签发的令牌，避免签发后第一次使用就触发一次无意义的续期
+     */
+    public void markIssued(String key) {
+        if (enabled) {
+            lastRenewed.put(key, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 令牌被使用，按需登记续期
+     */
+    public void touch(String key, Long userId) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Long last = lastRenewed.get(key);
+        if (last != null && now - last < renewInterval * 1000) {
+            return;
+        }
+
+        // 只有抢到更新的线程负责登记，并发请求不会重复写入
+        boolean won = last == null
+                ? lastRenewed.putIfAbsent(key, now) == null
+                : lastRenewed.replace(key, last, now);
+        if (won) {
+            pending.put(key, userId != null ? userId : 0L);
+        }
+    }
+
+    /**
+     * 令牌被删除时清理本地状态
+     */
+    public void forget(String key) {
+        lastRenewed.remove(key);
+        pending.remove(key);
+    }
+
+    /**
+     * 批量提交续期
+     */
+    @Scheduled(fixedDelayString = "${token.sliding.flush-interval:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+
+        while (!pending.isEmpty()) {
+            Map<String, Long> keys = drain();
+            if (keys.isEmpty()) {
+                break;
+            }
+            try {
+                // 续期的都是访问令牌，其会话索引一并延长
+                tokenStore.renew(keys, Duration.ofSeconds(tokenExpiration), TokenService.USER_SESSIONS_PREFIX);
+                log.debug("Renewed {} tokens", keys.size());
+            } catch (Exception e) {
+                // 续期失败不影响请求，令牌会在下一次使用时被再次登记
+                log.warn("Failed to renew {} tokens: {}", keys.size(), e.getMessage());
+                keys.keySet().forEach(lastRenewed::remove);
+                break;
+            }
+        }
+
+        cleanup();
+    }
+
+    private Map<String, Long> drain() {
+        Map<String, Long> keys = new HashMap<>();
+        Iterator<Map.Entry<String, Long>> it = pending.entrySet().iterator();
+        while (it.hasNext() && keys.size() < batchSize) {
+            Map.Entry<String, Long> entry = it.next();
+            keys.put(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+        return keys;
+    }
+
+    /**
+     * 超过续期间隔的记录已经没有合并作用，定期清除以限制内存占用
+     */
+    private void cleanup() {
+        long now = System.currentTimeMillis();
+        long intervalMillis = renewInterval * 1000;
+        if (now - lastCleanup < intervalMillis) {
+            return;
+        }
+        lastCleanup = now;
+        lastRenewed.values().removeIf(last -> now - last >= intervalMillis);
+    }
+}
@@ -0,0 +1,102 @@
+package net.bbq.falsework.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.protocol.ScoredEntry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JWT 吊销列表（jti 黑名单）。
+ * Redis 中保存一份权威副本（有序集合，score 为令牌过期时间），每个节点在内存中保存完整副本，
+ * 通过 pub/sub 增量同步并定期全量校准，因此校验时不需要任何网络调用。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private final RedissonClient redissonClient;
+
+    private static final String REVOKED_KEY = "auth:revoked";
+    private static final String REVOKED_TOPIC = "auth:revoked:events";
+
+    /** jti -> 过期时间（毫秒） */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private int listenerId = -1;
+
+    @PostConstruct
+    public void init() {
+        listenerId = topic().addListener(String.class, (channel, message) -> {
+            int idx = message.lastIndexOf('|');
+            if (idx > 0) {
+                revoked.put(message.substring(0, idx), Long.parseLong(message.substring(idx + 1)));
+            }
+        });
+        resync();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (listenerId != -1) {
+            topic().removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 吊销令牌，令牌过期后记录自动失效
+     */
+    public void revoke(String jti, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        revoked.put(jti, expiresAt);
+        set().add(expiresAt, jti);
+        topic().publish(jti + "|" + expiresAt);
+        log.info("Revoked token jti: {}", jti);
+    }
+
+    /**
+     * 检查令牌是否已被吊销（仅读内存）
+     */
+    public boolean isRevoked(String jti) {
+        return jti != null && revoked.containsKey(jti);
+    }
+
+    /**
+     * 全量校准，弥补 pub/sub 断线期间丢失的消息
+     */
+    @Scheduled(fixedDelayString = "${token.revocation.resync-interval:60000}")
+    public void resync() {
+        try {
+            long now = System.currentTimeMillis();
+            set().removeRangeByScore(0, true, now, true);
+            Collection<ScoredEntry<String>> entries = set().entryRange(now, false, Double.POSITIVE_INFINITY, true);
+            for (ScoredEntry<String> entry : entries) {
+                revoked.put(entry.getValue(), entry.getScore().longValue());
+            }
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        } catch (Exception e) {
+            log.warn("Failed to resync token revocation list", e);
+        }
+    }
+
+    private RScoredSortedSet<String> set() {
+        return redissonClient.getScoredSortedSet(REVOKED_KEY, StringCodec.INSTANCE);
+    }
+
+    private RTopic topic() {
+        return redissonClient.getTopic(REVOKED_TOPIC, StringCodec.INSTANCE);
+    }
+}
@@ -1,41 +1,90 @@
 package net.bbq.falsework.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.bbq.falsework.dto.TokenUser;
-import org.redisson.api.RedissonClient;
+import net.bbq.falsework.store.TokenStore;
+import net.bbq.falsework.store.TokenStoreUnavailableException;
+import net.bbq.falsework.util.SingleFlight;
+import net.bbq.falsework.util.TokenIdGenerator;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TokenService {
 
-    private final RedissonClient redissonClient;
+    private final TokenStore tokenStore;
     private final ObjectMapper objectMapper;
+    private final TokenRenewalService tokenRenewalService;
+    private final MeterRegistry meterRegistry;
+    private final TokenNearCache nearCache;
+    private final RefreshTokenPersistenceService refreshTokenPersistence;
 
     @Value("${token.expiration:86400}")
     private long tokenExpiration;
 
+    /** 每个用户同时有效的会话数上限（访问令牌和刷新令牌家族分别计数），0 表示不限制 */
+    @Value("${token.max-sessions-per-user:0}")
+    private int maxSessionsPerUser;
+
     private static final String TOKEN_PREFIX = "auth:token:";
     private static final String REFRESH_TOKEN_PREFIX = "auth:refresh:";
+    /** 刷新令牌家族指针：保存家族当前有效的刷新令牌键 */
+    private static final String REFRESH_FAMILY_PREFIX = "auth:refresh-family:";
+    private static final char FAMILY_SEPARATOR = '.';
+    /** 会话索引：按签发时间排序的访问令牌键 / 刷新令牌家族键 */
+    static final String USER_SESSIONS_PREFIX = "auth:user-sessions:";
+    private static final String USER_REFRESH_FAMILIES_PREFIX = "auth:user-refresh-families:";
+    /** 家族标识只需全局唯一，128 位即可；令牌本身的随机部分为 256 位 */
+    private static final int FAMILY_ID_BYTES = 16;
+
+    /**
+     * 刷新令牌轮换结果
+     */
+    public record RefreshRotation(TokenUser tokenUser, String refreshToken) {
+    }
+
+    /** 同一令牌的并发查询合并为一次存储读取 */
+    private SingleFlight<String, TokenUser> tokenLookups;
+
+    /** 合并查询时后到调用的最长等待时间（毫秒） */
+    @Value("${singleflight.wait-timeout:1000}")
+    private long singleFlightWaitTimeout;
+
+    @PostConstruct
+    public void init() {
+        this.tokenLookups = new SingleFlight<>("token", Duration.ofMillis(singleFlightWaitTimeout), meterRegistry);
+    }
 
     /**
      * 生成访问令牌并将用户信息保存到Redis
      */
     public String generateAccessToken(TokenUser tokenUser) {
-        String token = UUID.randomUUID().toString();
+        String token = TokenIdGenerator.next();
         String key = TOKEN_PREFIX + token;
 
         try {
             String json = objectMapper.writeValueAsString(tokenUser);
-            redissonClient.getBucket(key)
-                    .set(json, tokenExpiration, TimeUnit.SECONDS);
+            Duration ttl = Duration.ofSeconds(tokenExpiration);
+            if (maxSessionsPerUser > 0 && tokenUser.getUserId() != null) {
+                // 签发与超限淘汰在令牌存储中原子完成
+                recordSessions("access", tokenStore.putSession(key, json, ttl, tokenUser.getUserId(),
+                        USER_SESSIONS_PREFIX + tokenUser.getUserId(), maxSessionsPerUser, false));
+            } else {
+                tokenStore.put(key, json, ttl, tokenUser.getUserId());
+            }
+            tokenRenewalService.markIssued(key);
             log.info("Generated access token for user: {}", tokenUser.getUsername());
             return token;
         } catch (Exception e) {
@@ -45,18 +94,28 @@ public class TokenService {
     }
 
     /**
-     * 生成刷新令牌
+     * 生成刷新令牌，开启一个新的令牌家族。令牌格式为 {familyId}.{随机部分}
      */
     public String generateRefreshToken(Long userId, String username) {
-        String refreshToken = UUID.randomUUID().toString();
+        String familyId = TokenIdGenerator.next(FAMILY_ID_BYTES);
+        String refreshToken = familyId + FAMILY_SEPARATOR + TokenIdGenerator.next();
         String key = REFRESH_TOKEN_PREFIX + refreshToken;
 
         try {
             TokenUser tokenUser = new TokenUser(userId, username, "USER");
             String json = objectMapper.writeValueAsString(tokenUser);
-            // 刷新令牌有效期为7天
-            redissonClient.getBucket(key)
-                    .set(json, tokenExpiration * 7, TimeUnit.SECONDS);
+            Duration ttl = refreshTokenTtl();
+            if (refreshTokenPersistence.isEnabled()) {
+                // 数据库为权威存储，先落库再写缓存；缓存写入失败时仍可从数据库读取
+                refreshTokenPersistence.save(refreshToken, familyId, tokenUser, ttl);
+                try {
+                    cacheRefreshToken(familyId, key, json, ttl, userId);
+                } catch (TokenStoreUnavailableException e) {
+                    log.warn("Refresh token persisted but not cached: {}", e.getMessage());
+                }
+            } else {
+                cacheRefreshToken(familyId, key, json, ttl, userId);
+            }
             log.info("Generated refresh token for user: {}", username);
             return refreshToken;
         } catch (Exception e) {
@@ -65,24 +124,201 @@ public class TokenService {
         }
     }
 
+    private void cacheRefreshToken(String familyId, String key, String json, Duration ttl, Long userId) {
+        tokenStore.put(key, json, ttl, userId);
+        String familyKey = REFRESH_FAMILY_PREFIX + familyId;
+        if (maxSessionsPerUser > 0) {
+            // 每个家族对应一次登录，超限时淘汰最早的家族指针及其当前令牌
+            TokenStore.SessionPut result = tokenStore.putSession(familyKey, key, ttl, userId,
+                    USER_REFRESH_FAMILIES_PREFIX + userId, maxSessionsPerUser, true);
+            recordSessions("refresh", result);
+            if (refreshTokenPersistence.isEnabled()) {
+                // 被淘汰的家族也要从数据库删除，否则缓存未命中时会被重新加载
+                result.evictedKeys().forEach(evicted ->
+                        refreshTokenPersistence.deleteFamily(evicted.substring(REFRESH_FAMILY_PREFIX.length())));
+            }
+        } else {
+            tokenStore.put(familyKey, key, ttl, null);
+        }
+    }
+
+    private void recordSessions(String kind, TokenStore.SessionPut result) {
+        DistributionSummary.builder("token.sessions.per_user")
+                .description("Sessions held by the user at issuance")
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .record(result.sessions());
+        if (!result.evictedKeys().isEmpty()) {
+            meterRegistry.counter("token.sessions.evicted", "kind", kind).increment(result.evictedKeys().size());
+        }
+    }
+
     /**
-     * 根据令牌获取用户信息
+     * 刷新令牌有效期为访问令牌的7倍
+     */
+    private Duration refreshTokenTtl() {
+        return Duration.ofSeconds(tokenExpiration * 7);
+    }
+
+    /**
+     * 轮换刷新令牌：旧令牌作废，返回同一家族的新令牌。
+     * 已被轮换过的令牌再次出现说明令牌泄露，整个家族被吊销；带有家族前缀但从未签发过的令牌按无效处理，不影响家族。
+     */
+    public RefreshRotation rotateRefreshToken(String oldRefreshToken) {
+        String familyId = familyOf(oldRefreshToken);
+        if (familyId == null) {
+            // 升级前签发的刷新令牌没有家族，按旧方式删除后签发新家族
+            TokenUser tokenUser = getUserByRefreshToken(oldRefreshToken);
+            if (tokenUser == null) {
+                throw new RuntimeException("Invalid refresh token");
+            }
+            deleteRefreshToken(oldRefreshToken);
+            return new RefreshRotation(tokenUser,
+                    generateRefreshToken(tokenUser.getUserId(), tokenUser.getUsername()));
+        }
+
+        String newRefreshToken = familyId + FAMILY_SEPARATOR + TokenIdGenerator.next();
+        String familyKey = REFRESH_FAMILY_PREFIX + familyId;
+        String oldKey = REFRESH_TOKEN_PREFIX + oldRefreshToken;
+        String newKey = REFRESH_TOKEN_PREFIX + newRefreshToken;
+        Duration ttl = refreshTokenTtl();
+
+        TokenStore.Rotation rotation = tokenStore.rotate(familyKey, oldKey, newKey, ttl, USER_REFRESH_FAMILIES_PREFIX);
+        if (rotation.status() == TokenStore.Rotation.Status.INVALID
+                && refreshTokenPersistence.isEnabled() && rehydrateFamily(familyId, oldRefreshToken)) {
+            rotation = tokenStore.rotate(familyKey, oldKey, newKey, ttl, USER_REFRESH_FAMILIES_PREFIX);
+        }
+
+        switch (rotation.status()) {
+            case REUSED -> {
+                if (refreshTokenPersistence.isEnabled()) {
+                    refreshTokenPersistence.deleteFamily(familyId);
+                }
+                meterRegistry.counter("auth.refresh.reuse").increment();
+                log.warn("Refresh token reuse detected, revoked token family: {}", familyId);
+                throw new RuntimeException("Invalid refresh token");
+            }
+            case INVALID -> throw new RuntimeException("Invalid refresh token");
+            default -> {
+            }
+        }
+
+        try {
+            TokenUser tokenUser = objectMapper.readValue(rotation.value(), TokenUser.class);
+            if (refreshTokenPersistence.isEnabled()) {
+                refreshTokenPersistence.rotate(oldRefreshToken, newRefreshToken, familyId, tokenUser, ttl);
+            }
+            return new RefreshRotation(tokenUser, newRefreshToken);
+        } catch (Exception e) {
+            log.error("Failed to rotate refresh token", e);
+            // 令牌存储中已经轮换，需要撤回，否则客户端用旧令牌重试会被当作重放而吊销整个家族
+            undoRotation(familyKey, newKey, oldKey, ttl);
+            throw new RuntimeException("Failed to rotate refresh token", e);
+        }
+    }
+
+    /**
+     * 把家族指针和令牌记录从新令牌移回旧令牌；失败时只记录日志，客户端需要重新登录
+     */
+    private void undoRotation(String familyKey, String newKey, String oldKey, Duration ttl) {
+        try {
+            if (tokenStore.rotate(familyKey, newKey, oldKey, ttl, USER_REFRESH_FAMILIES_PREFIX).status() != TokenStore.Rotation.Status.ROTATED) {
+                log.warn("Could not undo refresh token rotation, family changed concurrently: {}", familyKey);
+            }
+        } catch (Exception e) {
+            log.warn("Could not undo refresh token rotation: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 令牌存储中没有家族信息时（如 Redis 被清空），从数据库恢复当前令牌和家族指针
+     */
+    private boolean rehydrateFamily(String familyId, String refreshToken) {
+        return refreshTokenPersistence.find(refreshToken)
+                .filter(entity -> familyId.equals(entity.getFamilyId()))
+                .map(entity -> {
+                    Duration remaining = Duration.between(LocalDateTime.now(), entity.getExpiresAt());
+                    if (remaining.isNegative() || remaining.isZero()) {
+                        return false;
+                    }
+                    try {
+                        TokenUser tokenUser = new TokenUser(entity.getUserId(), entity.getUsername(), "USER");
+                        cacheRefreshToken(familyId, REFRESH_TOKEN_PREFIX + refreshToken,
+                                objectMapper.writeValueAsString(tokenUser), remaining, entity.getUserId());
+                        return true;
+                    } catch (Exception e) {
+                        log.warn("Failed to rehydrate refresh token family: {}", e.getMessage());
+                        return false;
+                    }
+                })
+                .orElse(false);
+    }
+
+    private static String familyOf(String refreshToken) {
+        int separator = refreshToken.indexOf(FAMILY_SEPARATOR);
+        return separator > 0 ? refreshToken.substring(0, separator) : null;
+    }
+
+    /**
+     * 根据令牌获取用户信息。令牌存储不可用时降级到本地近缓存
      */
     public TokenUser getUserByToken(String token) {
+        return tokenLookups.execute(token, () -> loadUserByToken(token));
+    }
+
+    private TokenUser loadUserByToken(String token) {
         String key = TOKEN_PREFIX + token;
 
         try {
-            String json = (String) redissonClient.getBucket(key).get();
-            if (json == null) {
-                return null;
+            TokenUser tokenUser = parseRecord(token, tokenStore.get(key));
+            if (tokenUser != null) {
+                // 滑动过期：令牌被使用时登记续期
+                tokenRenewalService.touch(key, tokenUser.getUserId());
             }
-            return objectMapper.readValue(json, TokenUser.class);
+            return tokenUser;
+        } catch (TokenStoreUnavailableException e) {
+            log.warn("Token store unavailable, using near cache: {}", e.getMessage());
+            return nearCache.get(token);
         } catch (Exception e) {
             log.error("Failed to get user from Redis by token", e);
             return null;
         }
     }
 
+    /**
+     * 只读的批量查询，供令牌内省使用，一次令牌存储往返。结果与 tokens 顺序一致，无效令牌的位置为 null；
+     * 不登记滑动续期，内省不会延长令牌的有效期。令牌存储不可用时降级到本地近缓存
+     */
+    public List<TokenUser> peekUsersByTokens(List<String> tokens) {
+        List<String> values;
+        try {
+            values = tokenStore.getAll(tokens.stream().map(token -> TOKEN_PREFIX + token).toList());
+        } catch (TokenStoreUnavailableException e) {
+            log.warn("Token store unavailable, using near cache for batch lookup: {}", e.getMessage());
+            return tokens.stream().map(nearCache::get).toList();
+        }
+
+        List<TokenUser> users = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            users.add(parseRecord(tokens.get(i), values.get(i)));
+        }
+        return users;
+    }
+
+    private TokenUser parseRecord(String token, String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            TokenUser tokenUser = objectMapper.readValue(json, TokenUser.class);
+            nearCache.put(token, tokenUser);
+            return tokenUser;
+        } catch (Exception e) {
+            log.error("Failed to parse token record", e);
+            return null;
+        }
+    }
+
     /**
      * 根据刷新令牌获取用户信息
      */
@@ -90,31 +326,53 @@ public class TokenService {
         String key = REFRESH_TOKEN_PREFIX + refreshToken;
 
         try {
-            String json = (String) redissonClient.getBucket(key).get();
-            if (json == null) {
-                return null;
+            String json = tokenStore.get(key);
+            if (json != null) {
+                return objectMapper.readValue(json, TokenUser.class);
             }
-            return objectMapper.readValue(json, TokenUser.class);
+        } catch (TokenStoreUnavailableException e) {
+            log.warn("Token store unavailable for refresh token lookup: {}", e.getMessage());
         } catch (Exception e) {
             log.error("Failed to get user from Redis by refresh token", e);
             return null;
         }
+
+        return refreshTokenPersistence.isEnabled() ? loadPersistedRefreshToken(refreshToken) : null;
+    }
+
+    /**
+     * 缓存未命中时从数据库读取刷新令牌，并按剩余有效期回填缓存
+     */
+    private TokenUser loadPersistedRefreshToken(String refreshToken) {
+        return refreshTokenPersistence.find(refreshToken)
+                .map(entity -> {
+                    TokenUser tokenUser = new TokenUser(entity.getUserId(), entity.getUsername(), "USER");
+                    Duration remaining = Duration.between(LocalDateTime.now(), entity.getExpiresAt());
+                    try {
+                        if (!remaining.isNegative() && !remaining.isZero()) {
+                            tokenStore.put(REFRESH_TOKEN_PREFIX + refreshToken,
+                                    objectMapper.writeValueAsString(tokenUser), remaining, entity.getUserId());
+                        }
+                    } catch (Exception e) {
+                        log.warn("Failed to re-cache persisted refresh token: {}", e.getMessage());
+                    }
+                    return tokenUser;
+                })
+                .orElse(null);
     }
 
     /**
      * 验证令牌是否存在
      */
     public boolean validateToken(String token) {
-        String key = TOKEN_PREFIX + token;
-        return redissonClient.getBucket(key).isExists();
+        return tokenStore.exists(TOKEN_PREFIX + token);
     }
 
     /**
      * 验证刷新令牌是否存在
      */
     public boolean validateRefreshToken(String refreshToken) {
-        String key = REFRESH_TOKEN_PREFIX + refreshToken;
-        return redissonClient.getBucket(key).isExists();
+        return tokenStore.exists(REFRESH_TOKEN_PREFIX + refreshToken);
     }
 
     /**
@@ -122,7 +380,9 @@ public class TokenService {
      */
     public void deleteToken(String token) {
         String key = TOKEN_PREFIX + token;
-        redissonClient.getBucket(key).delete();
+        nearCache.remove(token);
+        tokenRenewalService.forget(key);
+        tokenStore.delete(key);
         log.info("Deleted token: {}", token);
     }
 
@@ -131,26 +391,54 @@ public class TokenService {
      */
     public void deleteRefreshToken(String refreshToken) {
         String key = REFRESH_TOKEN_PREFIX + refreshToken;
-        redissonClient.getBucket(key).delete();
+        if (refreshTokenPersistence.isEnabled()) {
+            refreshTokenPersistence.delete(refreshToken);
+        }
+        tokenStore.delete(key);
         log.info("Deleted refresh token: {}", refreshToken);
     }
 
     /**
-     * 刷新令牌
+     * 吊销刷新令牌所在的整个家族：家族指针、家族当前令牌和传入的令牌一并删除。
+     * 升级前签发的无家族刷新令牌只删除其本身
      */
-    public String refreshToken(String oldRefreshToken) {
-        TokenUser tokenUser = getUserByRefreshToken(oldRefreshToken);
-        if (tokenUser == null) {
-            throw new RuntimeException("Invalid refresh token");
+    public void revokeRefreshFamily(String refreshToken) {
+        String familyId = familyOf(refreshToken);
+        if (familyId == null) {
+            deleteRefreshToken(refreshToken);
+            return;
         }
 
-        // 删除旧的刷新令牌
-        deleteRefreshToken(oldRefreshToken);
+        String familyKey = REFRESH_FAMILY_PREFIX + familyId;
+        if (refreshTokenPersistence.isEnabled()) {
+            refreshTokenPersistence.deleteFamily(familyId);
+        }
+        String currentKey = tokenStore.get(familyKey);
+        if (currentKey != null) {
+            tokenStore.delete(currentKey);
+        }
+        tokenStore.delete(familyKey);
+        tokenStore.delete(REFRESH_TOKEN_PREFIX + refreshToken);
+        log.info("Revoked refresh token family: {}", familyId);
+    }
 
-        // 生成新的访问令牌和刷新令牌
-        String newAccessToken = generateAccessToken(tokenUser);
-        String newRefreshToken = generateRefreshToken(tokenUser.getUserId(), tokenUser.getUsername());
+    /**
+     * 吊销用户的全部访问令牌和刷新令牌
+     */
+    public int revokeAllTokens(Long userId) {
+        if (refreshTokenPersistence.isEnabled()) {
+            refreshTokenPersistence.deleteByUser(userId);
+        }
+        int revoked = tokenStore.revokeByUser(userId);
+        log.info("Revoked {} tokens for user: {}", revoked, userId);
+        return revoked;
+    }
 
-        return newAccessToken;
+    /**
+     * 刷新令牌
+     */
+    public String refreshToken(String oldRefreshToken) {
+        RefreshRotation rotation = rotateRefreshToken(oldRefreshToken);
+        return generateAccessToken(rotation.tokenUser());
     }
-}
\ No newline at end of file
+}
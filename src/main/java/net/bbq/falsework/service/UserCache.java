@@ -0,0 +1,160 @@
+package net.bbq.falsework.service;
+
+import net.bbq.falsework.entity.User;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 用户本地缓存：按 ID 保存用户，用户名和邮箱作为指向 ID 的二级索引。
+ * 本节点的更新和删除会立即失效对应条目；其他节点的修改最多在 ttl 后可见。
+ * 写入和读取都复制 User，调用方拿到的对象可以随意修改，不会影响缓存和其他调用方。
+ *
+ * 失效计数防止旧数据被写回：从数据库加载前先取 ticket，写入时计数已变化（加载期间发生过失效）则放弃写入。
+ * 按 ID 加载使用分段计数（同段的其他用户失效也会放弃写入，只多一次未命中），按用户名 / 邮箱加载不知道 ID，使用全局计数。
+ */
+@Component
+public class UserCache {
+
+    @Value("${user.cache.ttl:30000}")  // 毫秒，0 表示关闭
+    private long ttl;
+
+    @Value("${user.cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Long> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, Long> byEmail = new ConcurrentHashMap<>();
+
+    /** 失效计数的分段数 */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    private record Entry(User user, long expiresAt) {
+    }
+
+    /**
+     * 加载前记录的失效计数；stripe 为 -1 时对应全局计数
+     */
+    public record Ticket(int stripe, long generation) {
+    }
+
+    /**
+     * 按 ID 加载前调用
+     */
+    public Ticket ticket(Long id) {
+        int stripe = stripe(id);
+        return new Ticket(stripe, generations.get(stripe));
+    }
+
+    /**
+     * 按用户名或邮箱加载前调用
+     */
+    public Ticket ticket() {
+        return new Ticket(-1, globalGeneration.get());
+    }
+
+    public User get(Long id) {
+        Entry entry = byId.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            invalidate(id);
+            return null;
+        }
+        return copyOf(entry.user());
+    }
+
+    public User getByUsername(String username) {
+        Long id = byUsername.get(username);
+        User user = id != null ? get(id) : null;
+        return user != null && username.equals(user.getUsername()) ? user : null;
+    }
+
+    public User getByEmail(String email) {
+        Long id = byEmail.get(email);
+        User user = id != null ? get(id) : null;
+        return user != null && email.equals(user.getEmail()) ? user : null;
+    }
+
+    /**
+     * 写入加载结果；ticket 之后发生过失效时不写入
+     */
+    public void put(User user, Ticket ticket) {
+        if (ttl <= 0 || user == null || user.getId() == null || !isCurrent(ticket)) {
+            return;
+        }
+        if (byId.size() >= maxSize) {
+            evict();
+        }
+        Long id = user.getId();
+        Entry entry = new Entry(copyOf(user), System.currentTimeMillis() + ttl);
+        byId.put(id, entry);
+        if (!isCurrent(ticket)) {
+            // 写入前后之间发生了失效：invalidate 先增加计数再删除，这里撤回自己写入的条目即可
+            byId.remove(id, entry);
+            return;
+        }
+        if (user.getUsername() != null) {
+            byUsername.put(user.getUsername(), id);
+        }
+        if (user.getEmail() != null) {
+            byEmail.put(user.getEmail(), id);
+        }
+    }
+
+    public void invalidate(Long id) {
+        globalGeneration.incrementAndGet();
+        generations.incrementAndGet(stripe(id));
+        Entry entry = byId.remove(id);
+        if (entry == null) {
+            return;
+        }
+        if (entry.user().getUsername() != null) {
+            byUsername.remove(entry.user().getUsername(), id);
+        }
+        if (entry.user().getEmail() != null) {
+            byEmail.remove(entry.user().getEmail(), id);
+        }
+    }
+
+    private boolean isCurrent(Ticket ticket) {
+        long current = ticket.stripe() < 0 ? globalGeneration.get() : generations.get(ticket.stripe());
+        return current == ticket.generation();
+    }
+
+    private static int stripe(Long id) {
+        return Math.floorMod(Long.hashCode(id), GENERATION_STRIPES);
+    }
+
+    /**
+     * 复制一份 User，缓存内外不共享可变对象
+     */
+    static User copyOf(User user) {
+        if (user == null) {
+            return null;
+        }
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        byId.entrySet().removeIf(e -> e.getValue().expiresAt() < now);
+        if (byId.size() >= maxSize) {
+            byId.clear();
+        }
+        // 二级索引只指向 ID，悬空的索引在读取时会被校验掉
+        byUsername.values().removeIf(id -> !byId.containsKey(id));
+        byEmail.values().removeIf(id -> !byId.containsKey(id));
+    }
+}
@@ -0,0 +1,281 @@
+package net.bbq.falsework.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamReadArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户变更订阅：从 Redis Stream user:changes 读取事件并以 SSE 推送。
+ * 事件 id 即流中的消息 id，客户端重连时带上 Last-Event-ID 从断点继续。
+ * <p>
+ * 整个节点只有一个读取线程阻塞读取流（只占一条 Redis 连接），读到的事件分发到各订阅者的队列；
+ * 每个订阅者由一个虚拟线程从队列取出并发送，慢客户端不会拖慢其他订阅者，队列满时断开该订阅者，由客户端重连续传。
+ * 带 Last-Event-ID 的订阅先用 XRANGE 分页补发断点之后的事件，再衔接队列中的实时事件，按消息 id 去重。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserChangeFeedService {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final RedissonClient redissonClient;
+
+    @Value("${user.changes.max-subscribers:100}")
+    private int maxSubscribers;
+
+    @Value("${user.changes.sse-timeout:1800000}")  // 毫秒，到期后客户端按 Last-Event-ID 重连
+    private long sseTimeout;
+
+    @Value("${user.changes.poll-timeout:15000}")  // 毫秒，空闲时按此间隔发送心跳
+    private long pollTimeout;
+
+    @Value("${user.changes.subscriber-buffer:1000}")  // 每个订阅者待发送事件的上限
+    private int subscriberBuffer;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private volatile Semaphore permits;
+    private volatile Thread reader;
+    private volatile boolean running = true;
+
+    private record Event(StreamMessageId id, Map<String, String> fields) {
+    }
+
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+        final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        volatile boolean open = true;
+        /** 已发送的最后一条消息 id，只由该订阅者的发送线程读写 */
+        StreamMessageId cursor;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (open && !queue.offer(event)) {
+                log.debug("User change feed subscriber fell behind, disconnecting");
+                open = false;
+                emitter.complete();
+            }
+        }
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        StreamMessageId resumeFrom = parse(lastEventId);
+        Semaphore permits = permits();
+        if (!permits.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many change feed subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(sseTimeout);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscriber.open = false);
+        emitter.onTimeout(() -> subscriber.open = false);
+        emitter.onError(e -> subscriber.open = false);
+
+        // 先登记再补发：登记之后写入的事件一定进入队列，之前的事件由补发覆盖，重叠部分按 id 去重
+        subscribers.add(subscriber);
+        ensureReader();
+        Thread.ofVirtual().name("user-changes-sse").start(() -> {
+            try {
+                serve(subscriber, resumeFrom);
+            } finally {
+                subscribers.remove(subscriber);
+                permits.release();
+            }
+        });
+        return emitter;
+    }
+
+    private void serve(Subscriber subscriber, StreamMessageId resumeFrom) {
+        SseEmitter emitter = subscriber.emitter;
+        RStream<String, String> stream = stream();
+        try {
+            if (resumeFrom == null) {
+                subscriber.cursor = lastId(stream);
+            } else {
+                subscriber.cursor = resumeFrom;
+                catchUp(subscriber, stream);
+            }
+            while (subscriber.open) {
+                Event event = subscriber.queue.poll(pollTimeout, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    // 心跳同时用于发现已断开的连接
+                    emitter.send(SseEmitter.event().comment("keepalive"));
+                } else if (compare(event.id(), subscriber.cursor) > 0) {
+                    send(subscriber, event);
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // 客户端断开或 emitter 已结束
+            log.debug("User change feed subscriber disconnected: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (Exception e) {
+            log.warn("User change feed failed", e);
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * 补发断点之后的事件；断点已被裁剪时先发送 reset 事件，提示客户端全量重新加载后再继续增量
+     */
+    private void catchUp(Subscriber subscriber, RStream<String, String> stream) throws IOException {
+        Map<StreamMessageId, Map<String, String>> first = stream.range(1, StreamMessageId.MIN, StreamMessageId.MAX);
+        if (!first.isEmpty() && compare(subscriber.cursor, first.keySet().iterator().next()) < 0) {
+            subscriber.emitter.send(SseEmitter.event().name("reset").data("{}"));
+        }
+        while (subscriber.open) {
+            Map<StreamMessageId, Map<String, String>> page = stream.range(PAGE_SIZE, next(subscriber.cursor), StreamMessageId.MAX);
+            for (Map.Entry<StreamMessageId, Map<String, String>> entry : page.entrySet()) {
+                send(subscriber, new Event(entry.getKey(), entry.getValue()));
+            }
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, Event event) throws IOException {
+        subscriber.emitter.send(SseEmitter.event()
+                .id(event.id().toString())
+                .name(event.fields().get("type"))
+                .data(event.fields().get("payload")));
+        subscriber.cursor = event.id();
+    }
+
+    /**
+     * 共享读取线程：从流的末尾开始阻塞读取，分发给所有订阅者；Redis 不可用时稍后重试，订阅者只收到心跳
+     */
+    private void read(StreamMessageId start) {
+        RStream<String, String> stream = stream();
+        StreamMessageId cursor = start;
+        while (running) {
+            try {
+                if (cursor == null) {
+                    cursor = lastId(stream);
+                }
+                Map<StreamMessageId, Map<String, String>> entries = stream.read(
+                        StreamReadArgs.greaterThan(cursor).count(PAGE_SIZE).timeout(Duration.ofMillis(pollTimeout)));
+                if (entries == null) {
+                    continue;
+                }
+                for (Map.Entry<StreamMessageId, Map<String, String>> entry : entries.entrySet()) {
+                    Event event = new Event(entry.getKey(), entry.getValue());
+                    subscribers.forEach(subscriber -> subscriber.offer(event));
+                    cursor = entry.getKey();
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("User change feed reader failed, retrying: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void ensureReader() {
+        if (reader == null) {
+            synchronized (this) {
+                if (reader == null) {
+                    // 起点在启动线程前确定，保证不晚于首个订阅者的起点；Redis 暂不可用时由读取线程稍后重新确定
+                    StreamMessageId start;
+                    try {
+                        start = lastId(stream());
+                    } catch (Exception e) {
+                        start = null;
+                    }
+                    StreamMessageId from = start;
+                    reader = Thread.ofPlatform().daemon().name("user-changes-reader").start(() -> read(from));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        Thread thread = reader;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private RStream<String, String> stream() {
+        return redissonClient.getStream(UserOutboxService.STREAM, StringCodec.INSTANCE);
+    }
+
+    private static StreamMessageId lastId(RStream<String, String> stream) {
+        Map<StreamMessageId, Map<String, String>> last = stream.rangeReversed(1, StreamMessageId.MAX, StreamMessageId.MIN);
+        return last.isEmpty() ? new StreamMessageId(0, 0) : last.keySet().iterator().next();
+    }
+
+    /**
+     * XRANGE 的起点是闭区间，从断点的下一个 id 开始
+     */
+    private static StreamMessageId next(StreamMessageId id) {
+        return id.getId1() == Long.MAX_VALUE
+                ? new StreamMessageId(id.getId0() + 1, 0)
+                : new StreamMessageId(id.getId0(), id.getId1() + 1);
+    }
+
+    private static StreamMessageId parse(String id) {
+        if (id == null || id.isBlank()) {
+            return null;
+        }
+        try {
+            int dash = id.indexOf('-');
+            return dash < 0
+                    ? new StreamMessageId(Long.parseLong(id.trim()), 0)
+                    : new StreamMessageId(Long.parseLong(id.substring(0, dash).trim()),
+                                          Long.parseLong(id.substring(dash + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID: " + id);
+        }
+    }
+
+    private static int compare(StreamMessageId a, StreamMessageId b) {
+        int c = Long.compare(a.getId0(), b.getId0());
+        return c != 0 ? c : Long.compare(a.getId1(), b.getId1());
+    }
+
+    private Semaphore permits() {
+        if (permits == null) {
+            synchronized (this) {
+                if (permits == null) {
+                    permits = new Semaphore(maxSubscribers);
+                }
+            }
+        }
+        return permits;
+    }
+}
@@ -0,0 +1,11 @@
+package net.bbq.falsework.service;
+
+/**
+ * 用户不存在
+ */
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(Long id) {
+        super("User not found with id: " + id);
+    }
+}
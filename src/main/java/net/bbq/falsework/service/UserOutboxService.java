@@ -0,0 +1,135 @@
+package net.bbq.falsework.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.bbq.falsework.entity.User;
+import net.bbq.falsework.entity.UserOutbox;
+import net.bbq.falsework.mapper.UserOutboxMapper;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户变更发件箱（transactional outbox）。
+ * record 必须在修改用户的事务内调用，变更与事件要么一起提交要么一起回滚；
+ * publish 定时把发件箱中的事件按 id 顺序追加到 Redis Stream user:changes，成功后删除。
+ * id 在插入时分配而不是在提交时，流中的顺序不等于全局提交顺序；同一用户的变更受行锁串行化，彼此之间的顺序是可靠的。
+ * 发布是至少一次：追加成功但删除前进程退出时事件会重复，消费者可按 outboxId 去重。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserOutboxService {
+
+    public static final String STREAM = "user:changes";
+
+    /** pg_try_advisory_xact_lock 的锁键 */
+    private static final long PUBLISHER_LOCK_KEY = 0x7573657243686eL;
+
+    private final UserOutboxMapper outboxMapper;
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${user.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${user.outbox.max-batches:10}")
+    private int maxBatches;
+
+    @Value("${user.changes.stream-max-len:100000}")
+    private int streamMaxLen;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(User user) {
+        record("CREATED", user.getId(), snapshot(user));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(User user) {
+        record("UPDATED", user.getId(), snapshot(user));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long userId) {
+        record("DELETED", userId, Map.of("id", userId));
+    }
+
+    private void record(String eventType, Long userId, Map<String, Object> payload) {
+        UserOutbox outbox = new UserOutbox();
+        outbox.setEventType(eventType);
+        outbox.setUserId(userId);
+        try {
+            outbox.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize user change", e);
+        }
+        outbox.setCreatedAt(LocalDateTime.now());
+        outboxMapper.insert(outbox);
+    }
+
+    private static Map<String, Object> snapshot(User user) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", user.getId());
+        payload.put("username", user.getUsername());
+        payload.put("email", user.getEmail());
+        payload.put("roles", user.getRoles());
+        payload.put("enabled", user.getEnabled());
+        payload.put("version", user.getVersion());
+        payload.put("updatedAt", user.getUpdatedAt());
+        return payload;
+    }
+
+    /**
+     * 每批事件用一次 Redis 批量请求追加，流按 stream-max-len 近似裁剪
+     */
+    @Scheduled(fixedDelayString = "${user.outbox.publish-interval:1000}")
+    @Transactional
+    public void publish() {
+        if (!outboxMapper.tryPublisherLock(PUBLISHER_LOCK_KEY)) {
+            return;
+        }
+
+        int published = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            List<UserOutbox> events = outboxMapper.findOldest(batchSize);
+            if (events.isEmpty()) {
+                break;
+            }
+
+            RBatch batch = redissonClient.createBatch(BatchOptions.defaults().skipResult());
+            for (UserOutbox event : events) {
+                Map<String, String> fields = new LinkedHashMap<>();
+                fields.put("outboxId", String.valueOf(event.getId()));
+                fields.put("type", event.getEventType());
+                fields.put("userId", String.valueOf(event.getUserId()));
+                fields.put("payload", event.getPayload());
+                batch.<String, String>getStream(STREAM, StringCodec.INSTANCE)
+                        .addAsync(StreamAddArgs.entries(fields).trimNonStrict().maxLen(streamMaxLen).noLimit());
+            }
+            batch.execute();
+
+            outboxMapper.deleteByIds(events.stream().map(UserOutbox::getId).toList());
+            published += events.size();
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        if (published > 0) {
+            log.debug("Published {} user change events", published);
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package net.bbq.falsework.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import net.bbq.falsework.entity.User;
 import net.bbq.falsework.mapper.UserMapper;
+import net.bbq.falsework.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -16,54 +24,149 @@ import java.util.Optional;
 public class UserService {
 
     private final UserMapper userMapper;
+    private final MeterRegistry meterRegistry;
+    private final UserCache userCache;
+    private final PasswordEncoder passwordEncoder;
+    private final UserOutboxService outboxService;
+
+    /** 同一用户的并发查询合并为一次数据库查询 */
+    private SingleFlight<Long, User> userLookups;
+
+    /** 合并查询时后到调用的最长等待时间（毫秒） */
+    @Value("${singleflight.wait-timeout:1000}")
+    private long singleFlightWaitTimeout;
+
+    @PostConstruct
+    public void init() {
+        this.userLookups = new SingleFlight<>("user", Duration.ofMillis(singleFlightWaitTimeout), meterRegistry);
+    }
 
     @Transactional
     public User createUser(String username, String email, String password) {
         User user = new User();
         user.setUsername(username);
         user.setEmail(email);
-        user.setPassword(password);
+        user.setPassword(passwordEncoder.encode(password));
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
 
         userMapper.insert(user);
+        outboxService.recordCreated(user);
         return user;
     }
 
     public Optional<User> getUserById(Long id) {
-        return Optional.ofNullable(userMapper.selectById(id));
+        User cached = userCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // 只有执行查询的调用写缓存；合并的调用共享同一个结果，各自返回副本
+        User user = userLookups.execute(id, () -> {
+            UserCache.Ticket ticket = userCache.ticket(id);
+            User loaded = userMapper.selectById(id);
+            userCache.put(loaded, ticket);
+            return loaded;
+        });
+        return Optional.ofNullable(UserCache.copyOf(user));
     }
 
     public Optional<User> getUserByUsername(String username) {
-        return userMapper.findByUsername(username);
+        User cached = userCache.getByUsername(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        UserCache.Ticket ticket = userCache.ticket();
+        Optional<User> user = userMapper.findByUsername(username);
+        user.ifPresent(loaded -> userCache.put(loaded, ticket));
+        return user;
     }
 
     public Optional<User> getUserByEmail(String email) {
-        return userMapper.findByEmail(email);
+        User cached = userCache.getByEmail(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        UserCache.Ticket ticket = userCache.ticket();
+        Optional<User> user = userMapper.findByEmail(email);
+        user.ifPresent(loaded -> userCache.put(loaded, ticket));
+        return user;
     }
 
     public List<User> getAllUsers() {
         return userMapper.selectList(null);
     }
 
+    /**
+     * 整体更新。expectedVersion 不为空时先与当前版本比对，不一致时抛出 UserVersionConflictException；
+     * 为空时以读取到的版本为准，读取之后的并发修改仍会被乐观锁拦截，但读取之前的修改会被覆盖（后写者胜）
+     */
     @Transactional
-    public User updateUser(Long id, String username, String email, String password) {
+    public User updateUser(Long id, String username, String email, String password, Long expectedVersion) {
         User user = userMapper.selectById(id);
         if (user == null) {
-            throw new RuntimeException("User not found with id: " + id);
+            throw new UserNotFoundException(id);
+        }
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new UserVersionConflictException(id);
         }
 
         user.setUsername(username);
         user.setEmail(email);
-        user.setPassword(password);
+        user.setPassword(password != null ? passwordEncoder.encode(password) : null);
+        // updatedAt 参与 ETag 计算，每次更新都会使客户端缓存失效
         user.setUpdatedAt(LocalDateTime.now());
 
-        userMapper.updateById(user);
+        // 乐观锁拦截器追加 version 条件，读取之后被其他请求修改过时不更新任何行
+        if (userMapper.updateById(user) == 0) {
+            throw new UserVersionConflictException(id);
+        }
+        outboxService.recordUpdated(user);
+        evict(id);
+        return user;
+    }
+
+    /**
+     * 部分更新：单条 UPDATE 只写入非空字段并返回新行。
+     * expectedVersion 不为空时作为乐观锁条件，不一致时抛出 UserVersionConflictException
+     */
+    @Transactional
+    public User patchUser(Long id, String username, String email, String password, Long expectedVersion) {
+        String encodedPassword = password != null ? passwordEncoder.encode(password) : null;
+        Optional<User> updated = userMapper.patch(id, username, email, encodedPassword,
+                LocalDateTime.now(), expectedVersion);
+        evict(id);
+        User user = updated.orElseThrow(() -> {
+            // 失败路径才需要区分不存在和版本冲突
+            if (expectedVersion != null && userMapper.selectById(id) != null) {
+                return new UserVersionConflictException(id);
+            }
+            return new UserNotFoundException(id);
+        });
+        outboxService.recordUpdated(user);
         return user;
     }
 
     @Transactional
     public void deleteUser(Long id) {
-        userMapper.deleteById(id);
+        if (userMapper.deleteById(id) > 0) {
+            outboxService.recordDeleted(id);
+        }
+        evict(id);
+    }
+
+    /**
+     * 立即失效缓存，并在事务提交后再失效一次。提交前开始的并发读取可能读到旧行并在提交后才写回缓存，
+     * 这类写入由 UserCache 的失效计数拦截：读取前取得的 ticket 在提交后的失效之后不再有效
+     */
+    private void evict(Long id) {
+        userCache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.invalidate(id);
+                }
+            });
+        }
     }
 }
@@ -0,0 +1,11 @@
+package net.bbq.falsework.service;
+
+/**
+ * 乐观锁冲突：用户在读取之后已被其他请求修改
+ */
+public class UserVersionConflictException extends RuntimeException {
+
+    public UserVersionConflictException(Long id) {
+        super("User has been modified concurrently, id: " + id);
+    }
+}
@@ -0,0 +1,307 @@
+package net.bbq.falsework.store;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单节点部署使用的进程内令牌存储，省去一次Redis网络往返。
+ * 记录以 UTF-8 字节数组紧凑保存；过期由秒级时间轮驱动：每个记录按过期秒数落入对应槽位，
+ * 时间轮每秒只处理当前槽位，过期处理的开销与到期的令牌数成正比，而不是与令牌总数成正比。
+ * 记录放在以令牌键为键的 ConcurrentHashMap 中，没有使用堆外内存或原始类型键：令牌键是 54 字符的字符串，
+ * 换成哈希值做键仍要保存原键来处理冲突，省不了多少；堆外存储则需要自行管理内存和序列化。
+ * 与 Redis 的对比见 BENCHMARKS.md。
+ * 注意：进程重启后所有令牌失效，且不能在多节点间共享。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "token.store", havingValue = "local")
+public class LocalTokenStore implements TokenStore {
+
+    /** 时间轮槽位数（秒），超过一圈的过期时间会在每圈经过时重新入槽 */
+    private static final int WHEEL_SIZE = 3600;
+
+    /** 家族的已轮换令牌记录：familyKey + 后缀，值为各令牌键 SHA-1 前 16 位十六进制的拼接 */
+    private static final String RETIRED_SUFFIX = ":retired";
+    private static final int RETIRED_ID_LENGTH = 16;
+
+    /** sessionIndex 为登记的会话索引键，未登记为 null */
+    private record Record(byte[] value, long expiresAt, long userId, String sessionIndex) {
+    }
+
+    private record Expiry(String key, long expiresAt) {
+    }
+
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> userIndex = new ConcurrentHashMap<>();
+    /** 会话索引，按登记顺序保存令牌键；访问需持有 this 锁 */
+    private final Map<String, LinkedHashSet<String>> sessionIndexes = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private final Queue<Expiry>[] wheel = new Queue[WHEEL_SIZE];
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "local-token-store-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long lastTick = System.currentTimeMillis() / 1000;
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        ticker.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+        log.info("Using local in-memory token store");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ticker.shutdownNow();
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl, Long userId) {
+        put(key, value, ttl, userId, null);
+    }
+
+    private void put(String key, String value, Duration ttl, Long userId, String sessionIndex) {
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        long uid = userId != null ? userId : 0L;
+        records.put(key, new Record(value.getBytes(StandardCharsets.UTF_8), expiresAt, uid, sessionIndex));
+        if (uid != 0L) {
+            userIndex.computeIfAbsent(uid, id -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        schedule(key, expiresAt);
+    }
+
+    @Override
+    public synchronized SessionPut putSession(String key, String value, Duration ttl, Long userId,
+                                              String sessionIndexKey, int maxSessions, boolean cascade) {
+        put(key, value, ttl, userId, sessionIndexKey);
+        LinkedHashSet<String> sessions = sessionIndexes.computeIfAbsent(sessionIndexKey, k -> new LinkedHashSet<>());
+        sessions.add(key);
+
+        List<String> evicted = new ArrayList<>();
+        Iterator<String> oldest = sessions.iterator();
+        while (sessions.size() > maxSessions && oldest.hasNext()) {
+            String evictedKey = oldest.next();
+            oldest.remove();
+            String target = cascade ? get(evictedKey) : null;
+            if (target != null) {
+                delete(target);
+            }
+            Record record = records.remove(evictedKey);
+            if (record != null) {
+                unindexUser(evictedKey, record);
+                evicted.add(evictedKey);
+            }
+        }
+        return new SessionPut(sessions.size(), evicted);
+    }
+
+    @Override
+    public String get(String key) {
+        Record record = records.get(key);
+        if (record == null || record.expiresAt() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return new String(record.value(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public List<String> getAll(List<String> keys) {
+        return keys.stream().map(this::get).toList();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean delete(String key) {
+        Record record = records.remove(key);
+        if (record == null) {
+            return false;
+        }
+        unindex(key, record);
+        return true;
+    }
+
+    @Override
+    public void renew(Map<String, Long> keys, Duration ttl, String sessionIndexPrefix) {
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        keys.keySet().forEach(key -> {
+            Record renewed = records.computeIfPresent(key,
+                    (k, record) -> new Record(record.value(), expiresAt, record.userId(), record.sessionIndex()));
+            if (renewed != null) {
+                schedule(key, expiresAt);
+            }
+        });
+    }
+
+    @Override
+    public int revokeByUser(Long userId) {
+        Set<String> keys = userIndex.remove(userId);
+        if (keys == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (String key : keys) {
+            Record record = records.remove(key);
+            if (record != null) {
+                unindexSession(key, record);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 轮换在进程内串行执行，家族指针的比较与推进不会交错。进程内的会话索引没有有效期，sessionIndexPrefix 无需处理
+     */
+    @Override
+    public synchronized Rotation rotate(String familyKey, String oldKey, String newKey, Duration ttl,
+                                        String sessionIndexPrefix) {
+        String head = get(familyKey);
+        Record family = records.get(familyKey);
+        if (head == null || family == null) {
+            return Rotation.invalid();
+        }
+        String retiredKey = familyKey + RETIRED_SUFFIX;
+        if (!head.equals(oldKey)) {
+            if (!isRetired(get(retiredKey), retiredId(oldKey))) {
+                return Rotation.invalid();
+            }
+            delete(familyKey);
+            delete(head);
+            delete(retiredKey);
+            return Rotation.reused();
+        }
+        String value = get(oldKey);
+        Record record = records.get(oldKey);
+        if (value == null || record == null) {
+            return Rotation.invalid();
+        }
+        delete(oldKey);
+        put(newKey, value, ttl, record.userId() != 0L ? record.userId() : null);
+        // 家族指针保留原有的用户索引和会话索引登记
+        put(familyKey, newKey, ttl, family.userId() != 0L ? family.userId() : null, family.sessionIndex());
+        String retired = get(retiredKey);
+        put(retiredKey, (retired != null ? retired : "") + retiredId(oldKey), ttl, null);
+        return Rotation.rotated(value);
+    }
+
+    private static boolean isRetired(String retired, String id) {
+        if (retired == null) {
+            return false;
+        }
+        for (int i = 0; i + RETIRED_ID_LENGTH <= retired.length(); i += RETIRED_ID_LENGTH) {
+            if (retired.regionMatches(i, id, 0, RETIRED_ID_LENGTH)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String retiredId(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, RETIRED_ID_LENGTH / 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void schedule(String key, long expiresAt) {
+        wheel[(int) ((expiresAt / 1000) % WHEEL_SIZE)].add(new Expiry(key, expiresAt));
+    }
+
+    /**
+     * 推进时间轮，补齐因调度延迟错过的秒数
+     */
+    private void tick() {
+        try {
+            long now = System.currentTimeMillis() / 1000;
+            while (lastTick < now) {
+                lastTick++;
+                expireSlot(lastTick);
+            }
+        } catch (Exception e) {
+            log.error("Local token store expiry tick failed", e);
+        }
+    }
+
+    private void expireSlot(long second) {
+        Queue<Expiry> slot = wheel[(int) (second % WHEEL_SIZE)];
+        int pending = slot.size();
+        for (int i = 0; i < pending; i++) {
+            Expiry expiry = slot.poll();
+            if (expiry == null) {
+                break;
+            }
+            if (expiry.expiresAt() / 1000 > second) {
+                // 还没到这一圈
+                slot.add(expiry);
+                continue;
+            }
+            Record record = records.get(expiry.key());
+            // 续期后会有新的时间轮条目，旧条目直接丢弃
+            if (record != null && record.expiresAt() == expiry.expiresAt()
+                    && records.remove(expiry.key(), record)) {
+                unindex(expiry.key(), record);
+            }
+        }
+    }
+
+    private void unindex(String key, Record record) {
+        unindexUser(key, record);
+        unindexSession(key, record);
+    }
+
+    private void unindexUser(String key, Record record) {
+        if (record.userId() == 0L) {
+            return;
+        }
+        userIndex.computeIfPresent(record.userId(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private void unindexSession(String key, Record record) {
+        if (record.sessionIndex() == null) {
+            return;
+        }
+        synchronized (this) {
+            Set<String> sessions = sessionIndexes.get(record.sessionIndex());
+            if (sessions != null && sessions.remove(key) && sessions.isEmpty()) {
+                sessionIndexes.remove(record.sessionIndex());
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package net.bbq.falsework.store;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.BatchResult;
+import org.redisson.api.RBatch;
+import org.redisson.api.RMap;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分桶布局的 Redis 令牌存储（token.store=redis-bucketed），用于降低大量会话时的内存占用。
+ *
+ * 令牌键不再是顶层键：对键做 SHA-1，前 2 字节决定桶 auth:tb:{4 位十六进制}（共 65536 个桶），
+ * 第 5~20 字节作为桶内字段名（16 字节二进制），过期时间用字段级 TTL（HPEXPIRE，需要 Redis 7.4+）。
+ * 百万会话（约 300 万条记录）时每个桶约 46 个字段，小于 hash-max-listpack-entries，桶以 listpack 紧凑编码保存；
+ * 令牌记录长度需不超过 hash-max-listpack-value（默认 64，建议调到 128），否则桶会转为哈希表编码。
+ *
+ * 用户索引 auth:user-tokens:{userId} 的成员是 20 字节定位符（桶后缀 + 字段名），分数为过期时间（毫秒），
+ * 每次写入索引时顺带清理已过期的成员，与 RedisTokenStore 一致；会话索引的成员仍是令牌键，以便淘汰时返回被淘汰的键。桶键由脚本内根据令牌键计算，未在 KEYS 中声明，
+ * 只适用于单实例、主从或哨兵部署，不支持 Redis Cluster，启动时检查。
+ * 内存对比见 TOKEN-STORE-MEMORY.md。
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "token.store", havingValue = "redis-bucketed")
+public class RedisBucketedTokenStore implements TokenStore {
+
+    private static final String USER_INDEX_PREFIX = "auth:user-tokens:";
+
+    private static final String BUCKET_PREFIX = "auth:tb:";
+
+    /** 桶后缀的十六进制位数，4 位即 65536 个桶 */
+    private static final int BUCKET_HEX_DIGITS = 4;
+
+    /** 字段名取摘要的第 5~20 字节 */
+    private static final int FIELD_OFFSET = 4;
+    private static final int FIELD_LENGTH = 16;
+
+    /** 令牌记录是 JSON，不会以该前缀开头 */
+    private static final String REUSED_MARKER = "!reused";
+
+    /** 家族的已轮换令牌集合，是独立的顶层键（不分桶），成员为令牌键 SHA-1 的前 16 位十六进制 */
+    private static final String RETIRED_SUFFIX = ":retired";
+
+    /**
+     * 各脚本共用的定位函数，与 locate(String) 的计算方式保持一致：
+     * locate 返回桶键和字段名，member 返回用户索引成员，unmember 为其逆运算；
+     * addToIndex 先清理用户索引中已过期的成员再登记
+     */
+    private static final String PRELUDE =
+            "local function field(h) " +
+            "  return (string.sub(h, " + (FIELD_OFFSET * 2 + 1) + ", " + ((FIELD_OFFSET + FIELD_LENGTH) * 2) + "):gsub('..', " +
+            "    function(c) return string.char(tonumber(c, 16)) end)) " +
+            "end " +
+            "local function locate(key) " +
+            "  local h = redis.sha1hex(key) " +
+            "  return '" + BUCKET_PREFIX + "' .. string.sub(h, 1, " + BUCKET_HEX_DIGITS + "), field(h) " +
+            "end " +
+            "local function member(key) " +
+            "  local h = redis.sha1hex(key) " +
+            "  return string.sub(h, 1, " + BUCKET_HEX_DIGITS + ") .. field(h) " +
+            "end " +
+            "local function unmember(m) " +
+            "  return '" + BUCKET_PREFIX + "' .. string.sub(m, 1, " + BUCKET_HEX_DIGITS + "), " +
+            "    string.sub(m, " + (BUCKET_HEX_DIGITS + 1) + ") " +
+            "end " +
+            "local function store(key, value, ttl) " +
+            "  local b, f = locate(key) " +
+            "  redis.call('HSET', b, f, value) " +
+            "  redis.call('HPEXPIRE', b, ttl, 'FIELDS', 1, f) " +
+            "end " +
+            "local function extend(index, ttl) " +
+            "  if redis.call('PTTL', index) < tonumber(ttl) then redis.call('PEXPIRE', index, ttl) end " +
+            "end " +
+            "local function addToIndex(key, token, now, expiresAt) " +
+            "  redis.call('ZREMRANGEBYSCORE', key, '-inf', '(' .. now) " +
+            "  redis.call('ZADD', key, expiresAt, member(token)) " +
+            "end ";
+
+    /** ARGV: 令牌键, 记录, TTL 毫秒, 签发时间, 过期时间；KEYS[1] 为用户索引（可选） */
+    private static final String PUT_SCRIPT = PRELUDE +
+            "store(ARGV[1], ARGV[2], ARGV[3]) " +
+            "if KEYS[1] then " +
+            "  addToIndex(KEYS[1], ARGV[1], ARGV[4], ARGV[5]) " +
+            "  extend(KEYS[1], ARGV[3]) " +
+            "end " +
+            "return 1";
+
+    /**
+     * KEYS: 用户索引, 会话索引；ARGV: 令牌键, 记录, TTL 毫秒, 签发时间, 上限, 是否级联, 过期时间。
+     * 会话索引的分数为签发时间，淘汰逻辑与 RedisTokenStore 相同，返回 {会话数, 被淘汰的键...}
+     */
+    private static final String PUT_SESSION_SCRIPT = PRELUDE +
+            "store(ARGV[1], ARGV[2], ARGV[3]) " +
+            "addToIndex(KEYS[1], ARGV[1], ARGV[4], ARGV[7]) " +
+            "extend(KEYS[1], ARGV[3]) " +
+            "redis.call('ZADD', KEYS[2], ARGV[4], ARGV[1]) " +
+            "extend(KEYS[2], ARGV[3]) " +
+            "local evicted = {} " +
+            "while redis.call('ZCARD', KEYS[2]) > tonumber(ARGV[5]) do " +
+            "  local oldest = redis.call('ZPOPMIN', KEYS[2])[1] " +
+            "  local b, f = locate(oldest) " +
+            "  if ARGV[6] == '1' then " +
+            "    local target = redis.call('HGET', b, f) " +
+            "    if target then local tb, tf = locate(target) redis.call('HDEL', tb, tf) end " +
+            "  end " +
+            "  if redis.call('HDEL', b, f) == 1 then table.insert(evicted, oldest) end " +
+            "end " +
+            "return {redis.call('ZCARD', KEYS[2]), unpack(evicted)}";
+
+    /**
+     * ARGV: TTL 毫秒, 过期时间, 之后每两个一组为令牌键和用户索引（未登记为空串）；KEYS 为需要同步延长的用户索引和会话索引。
+     * 只更新仍在用户索引中的成员（ZADD XX），否则续期后的令牌会被当作已过期清理
+     */
+    private static final String RENEW_SCRIPT = PRELUDE +
+            "for i = 3, #ARGV, 2 do " +
+            "  local b, f = locate(ARGV[i]) " +
+            "  redis.call('HPEXPIRE', b, ARGV[1], 'FIELDS', 1, f) " +
+            "  if ARGV[i + 1] ~= '' then redis.call('ZADD', ARGV[i + 1], 'XX', ARGV[2], member(ARGV[i])) end " +
+            "end " +
+            "for _, index in ipairs(KEYS) do extend(index, ARGV[1]) end " +
+            "return 1";
+
+    private static final String REVOKE_SCRIPT = PRELUDE +
+            "local members = redis.call('ZRANGE', KEYS[1], 0, -1) " +
+            "local deleted = 0 " +
+            "for _, m in ipairs(members) do " +
+            "  local b, f = unmember(m) " +
+            "  deleted = deleted + redis.call('HDEL', b, f) " +
+            "end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "return deleted";
+
+    /** ARGV: 家族键, 旧令牌键, 新令牌键, TTL 毫秒, 用户索引前缀, 签发时间, 已轮换集合键, 会话索引前缀（可为空串）, 过期时间；语义同 RedisTokenStore */
+    private static final String ROTATE_SCRIPT = PRELUDE +
+            "local fb, ff = locate(ARGV[1]) " +
+            "local head = redis.call('HGET', fb, ff) " +
+            "if not head then return nil end " +
+            "local retired = string.sub(redis.sha1hex(ARGV[2]), 1, 16) " +
+            "if head ~= ARGV[2] then " +
+            "  if redis.call('SISMEMBER', ARGV[7], retired) == 0 then return nil end " +
+            "  redis.call('HDEL', fb, ff) " +
+            "  local hb, hf = locate(head) " +
+            "  redis.call('HDEL', hb, hf) " +
+            "  redis.call('DEL', ARGV[7]) " +
+            "  return '" + REUSED_MARKER + "' " +
+            "end " +
+            "local ob, of = locate(ARGV[2]) " +
+            "local record = redis.call('HGET', ob, of) " +
+            "if not record then return nil end " +
+            "redis.call('HDEL', ob, of) " +
+            "store(ARGV[3], record, ARGV[4]) " +
+            "store(ARGV[1], ARGV[3], ARGV[4]) " +
+            "redis.call('SADD', ARGV[7], retired) " +
+            "redis.call('PEXPIRE', ARGV[7], ARGV[4]) " +
+            "local ok, user = pcall(cjson.decode, record) " +
+            "if ok and type(user) == 'table' and type(user.userId) == 'number' then " +
+            "  local index = ARGV[5] .. string.format('%d', user.userId) " +
+            "  redis.call('ZREM', index, member(ARGV[2])) " +
+            "  addToIndex(index, ARGV[3], ARGV[6], ARGV[9]) " +
+            "  extend(index, ARGV[4]) " +
+            "  if ARGV[8] ~= '' then extend(ARGV[8] .. string.format('%d', user.userId), ARGV[4]) end " +
+            "end " +
+            "return record";
+
+    private static final ThreadLocal<MessageDigest> SHA1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final RedissonClient redissonClient;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    @Value("${token.redis.read-timeout:200}")  // 毫秒
+    private long readTimeout;
+
+    @Value("${token.redis.write-timeout:500}")  // 毫秒
+    private long writeTimeout;
+
+    /**
+     * 脚本按令牌记录和前缀在脚本内拼出索引键、淘汰目标等键，未全部通过 KEYS 声明，
+     * 在 Redis Cluster 中这些键可能落在其他槽位上，因此拒绝以集群模式启动
+     */
+    @PostConstruct
+    public void init() {
+        if (redissonClient.getConfig().isClusterConfig()) {
+            throw new IllegalStateException(
+                    "token.store=%s requires a standalone, master/replica or sentinel Redis; Redis Cluster is not supported"
+                            .formatted("redis-bucketed"));
+        }
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl, Long userId) {
+        List<Object> keys = userId != null ? List.of(userIndexKey(userId)) : List.of();
+        long now = System.currentTimeMillis();
+        circuitBreaker.execute(() -> script().evalAsync(
+                RScript.Mode.READ_WRITE, PUT_SCRIPT, RScript.ReturnType.INTEGER, keys,
+                key, value, String.valueOf(ttl.toMillis()), String.valueOf(now), String.valueOf(now + ttl.toMillis())
+        ), writeTimeout);
+    }
+
+    @Override
+    public SessionPut putSession(String key, String value, Duration ttl, Long userId,
+                                 String sessionIndexKey, int maxSessions, boolean cascade) {
+        long now = System.currentTimeMillis();
+        List<Object> result = circuitBreaker.execute(() -> script().<List<Object>>evalAsync(
+                RScript.Mode.READ_WRITE, PUT_SESSION_SCRIPT, RScript.ReturnType.MULTI,
+                List.of(userIndexKey(userId), sessionIndexKey),
+                key, value, String.valueOf(ttl.toMillis()), String.valueOf(now),
+                String.valueOf(maxSessions), cascade ? "1" : "0", String.valueOf(now + ttl.toMillis())
+        ), writeTimeout);
+        List<String> evicted = result.subList(1, result.size()).stream().map(String::valueOf).toList();
+        return new SessionPut(((Number) result.get(0)).intValue(), evicted);
+    }
+
+    @Override
+    public String get(String key) {
+        Location location = locate(key);
+        byte[] value = circuitBreaker.execute(() -> bucket(location).getAsync(location.field()), readTimeout);
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * 键分散在不同的桶里，无法用一条 MGET 读取，改为管道批量 HGET
+     */
+    @Override
+    public List<String> getAll(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<Location> locations = keys.stream().map(RedisBucketedTokenStore::locate).toList();
+        BatchResult<?> result = circuitBreaker.execute(() -> {
+            RBatch batch = redissonClient.createBatch();
+            for (Location location : locations) {
+                batch.<byte[], byte[]>getMap(location.bucket(), ByteArrayCodec.INSTANCE).getAsync(location.field());
+            }
+            return batch.executeAsync();
+        }, readTimeout);
+        return result.getResponses().stream()
+                .map(value -> value != null ? new String((byte[]) value, StandardCharsets.UTF_8) : null)
+                .toList();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        Location location = locate(key);
+        return circuitBreaker.execute(() -> bucket(location).containsKeyAsync(location.field()), readTimeout);
+    }
+
+    @Override
+    public boolean delete(String key) {
+        Location location = locate(key);
+        Long deleted = circuitBreaker.execute(() -> bucket(location).fastRemoveAsync(location.field()), writeTimeout);
+        return deleted != null && deleted > 0;
+    }
+
+    @Override
+    public void renew(Map<String, Long> keys, Duration ttl, String sessionIndexPrefix) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Set<Object> indexes = new LinkedHashSet<>();
+        List<Object> args = new ArrayList<>(keys.size() * 2 + 2);
+        args.add(String.valueOf(ttl.toMillis()));
+        args.add(String.valueOf(System.currentTimeMillis() + ttl.toMillis()));
+        keys.forEach((key, userId) -> {
+            args.add(key);
+            args.add(userId != 0L ? userIndexKey(userId) : "");
+            if (userId != 0L) {
+                indexes.add(userIndexKey(userId));
+                if (sessionIndexPrefix != null) {
+                    indexes.add(sessionIndexPrefix + userId);
+                }
+            }
+        });
+        circuitBreaker.execute(() -> script().evalAsync(
+                RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                new ArrayList<>(indexes), args.toArray()
+        ), writeTimeout);
+    }
+
+    @Override
+    public int revokeByUser(Long userId) {
+        Long deleted = circuitBreaker.execute(() -> script().<Long>evalAsync(
+                RScript.Mode.READ_WRITE, REVOKE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(userIndexKey(userId))
+        ), writeTimeout);
+        return deleted != null ? deleted.intValue() : 0;
+    }
+
+    @Override
+    public Rotation rotate(String familyKey, String oldKey, String newKey, Duration ttl, String sessionIndexPrefix) {
+        long now = System.currentTimeMillis();
+        String result = circuitBreaker.execute(() -> script().<String>evalAsync(
+                RScript.Mode.READ_WRITE, ROTATE_SCRIPT, RScript.ReturnType.VALUE, List.of(),
+                familyKey, oldKey, newKey, String.valueOf(ttl.toMillis()),
+                USER_INDEX_PREFIX, String.valueOf(now), familyKey + RETIRED_SUFFIX,
+                sessionIndexPrefix != null ? sessionIndexPrefix : "", String.valueOf(now + ttl.toMillis())
+        ), writeTimeout);
+        if (result == null) {
+            return Rotation.invalid();
+        }
+        return REUSED_MARKER.equals(result) ? Rotation.reused() : Rotation.rotated(result);
+    }
+
+    /**
+     * 令牌键在桶布局中的位置，计算方式与脚本中的 locate 一致
+     */
+    static Location locate(String key) {
+        byte[] digest = SHA1.get().digest(key.getBytes(StandardCharsets.UTF_8));
+        String bucket = BUCKET_PREFIX + HexFormat.of().formatHex(digest, 0, BUCKET_HEX_DIGITS / 2);
+        return new Location(bucket, Arrays.copyOfRange(digest, FIELD_OFFSET, FIELD_OFFSET + FIELD_LENGTH));
+    }
+
+    record Location(String bucket, byte[] field) {
+    }
+
+    private RMap<byte[], byte[]> bucket(Location location) {
+        return redissonClient.getMap(location.bucket(), ByteArrayCodec.INSTANCE);
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    private static String userIndexKey(Long userId) {
+        return USER_INDEX_PREFIX + userId;
+    }
+}
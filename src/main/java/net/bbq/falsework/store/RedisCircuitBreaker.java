@@ -0,0 +1,117 @@
+package net.bbq.falsework.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 令牌存储的熔断器。每次调用都有独立的截止时间（远小于 spring.data.redis.timeout），
+ * 连续失败达到阈值后熔断，熔断期间直接拒绝调用，由调用方降级；熔断时间结束后放行一个探测请求（半开）。
+ *
+ * 指标：token.store.circuit.state（0 关闭，1 打开，2 半开），token.store.calls{result}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${token.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${token.circuit.open-duration:10000}")  // 毫秒
+    private long openDuration;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger state = new AtomicInteger(State.CLOSED.ordinal());
+    private volatile long openedAt;
+
+    private Counter success;
+    private Counter failure;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("token.store.circuit.state", state);
+        this.success = meterRegistry.counter("token.store.calls", "result", "success");
+        this.failure = meterRegistry.counter("token.store.calls", "result", "failure");
+        this.rejected = meterRegistry.counter("token.store.calls", "result", "rejected");
+    }
+
+    /**
+     * 在截止时间内执行一次异步调用
+     *
+     * @throws TokenStoreUnavailableException 熔断中、超时或调用失败
+     */
+    public <T> T execute(Supplier<? extends CompletionStage<T>> operation, long deadlineMillis) {
+        if (!allowRequest()) {
+            rejected.increment();
+            throw new TokenStoreUnavailableException("Token store circuit is open", null);
+        }
+
+        try {
+            T result = operation.get().toCompletableFuture().get(deadlineMillis, TimeUnit.MILLISECONDS);
+            onSuccess();
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onFailure();
+            throw new TokenStoreUnavailableException("Interrupted", e);
+        } catch (TimeoutException | ExecutionException | RuntimeException e) {
+            onFailure();
+            throw new TokenStoreUnavailableException("Token store call failed", e);
+        }
+    }
+
+    public State getState() {
+        return State.values()[state.get()];
+    }
+
+    /**
+     * 熔断中是否可以放行：打开状态超过 open-duration 后只允许一个线程进入半开探测
+     */
+    public boolean allowRequest() {
+        int current = state.get();
+        if (current == State.CLOSED.ordinal()) {
+            return true;
+        }
+        if (current == State.OPEN.ordinal() && System.currentTimeMillis() - openedAt >= openDuration) {
+            return state.compareAndSet(State.OPEN.ordinal(), State.HALF_OPEN.ordinal());
+        }
+        return false;
+    }
+
+    private void onSuccess() {
+        success.increment();
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED.ordinal()) != State.CLOSED.ordinal()) {
+            log.info("Token store circuit closed");
+        }
+    }
+
+    private void onFailure() {
+        failure.increment();
+        int failures = consecutiveFailures.incrementAndGet();
+        int current = state.get();
+        if (current == State.HALF_OPEN.ordinal()
+                || (current == State.CLOSED.ordinal() && failures >= failureThreshold)) {
+            openedAt = System.currentTimeMillis();
+            state.set(State.OPEN.ordinal());
+            log.warn("Token store circuit opened after {} consecutive failures", failures);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package net.bbq.falsework.store;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于 Redis 的令牌存储。值以纯字符串保存（StringCodec），用户索引为有序集合
+ * auth:user-tokens:{userId}（成员为令牌键，分数为过期时间，毫秒）。
+ * 删除和轮换时移除对应成员，每次写入索引时顺带清理已过期的成员；续期同时推后成员的分数。
+ * 续期和轮换时用户索引与会话索引的有效期一并延长，索引不会先于其中的令牌过期。
+ * 所有调用经过 RedisCircuitBreaker，带独立截止时间。
+ * 脚本会访问未在 KEYS 中声明的键（用户索引、会话索引、被淘汰的令牌、家族当前令牌），
+ * 只适用于单实例、主从或哨兵部署，不支持 Redis Cluster，启动时检查。
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "token.store", havingValue = "redis", matchIfMissing = true)
+public class RedisTokenStore implements TokenStore {
+
+    private static final String USER_INDEX_PREFIX = "auth:user-tokens:";
+
+    /** 令牌记录是 JSON，不会以该前缀开头 */
+    private static final String REUSED_MARKER = "!reused";
+
+    /** 家族的已轮换令牌集合：familyKey + 后缀，成员为令牌键 SHA-1 的前 16 位十六进制 */
+    private static final String RETIRED_SUFFIX = ":retired";
+
+    /**
+     * 写入令牌并登记到用户索引，索引的有效期不短于其中任何令牌。
+     * ARGV[3] 为当前时间，ARGV[4] 为令牌过期时间（毫秒）；过期时间早于当前时间的成员一并清理
+     */
+    private static final String PUT_SCRIPT =
+            "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', '(' .. ARGV[3]) " +
+            "redis.call('ZADD', KEYS[2], ARGV[4], KEYS[1]) " +
+            "if redis.call('TTL', KEYS[2]) < tonumber(ARGV[2]) then redis.call('EXPIRE', KEYS[2], ARGV[2]) end " +
+            "return 1";
+
+    /**
+     * 在 PUT_SCRIPT 的基础上登记到会话索引 KEYS[3]，超过上限 ARGV[4] 时弹出最早的成员并删除；
+     * 已过期的成员同样按签发顺序被弹出，不计入淘汰。ARGV[5] 为 1 时成员的值指向的键一并删除。
+     * 会话索引的分数为签发时间 ARGV[3]，用户索引的分数为过期时间 ARGV[6]。
+     * 返回 {会话数, 被淘汰的键...}
+     */
+    private static final String PUT_SESSION_SCRIPT =
+            "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', '(' .. ARGV[3]) " +
+            "redis.call('ZADD', KEYS[2], ARGV[6], KEYS[1]) " +
+            "if redis.call('TTL', KEYS[2]) < tonumber(ARGV[2]) then redis.call('EXPIRE', KEYS[2], ARGV[2]) end " +
+            "redis.call('ZADD', KEYS[3], ARGV[3], KEYS[1]) " +
+            "if redis.call('TTL', KEYS[3]) < tonumber(ARGV[2]) then redis.call('EXPIRE', KEYS[3], ARGV[2]) end " +
+            "local evicted = {} " +
+            "while redis.call('ZCARD', KEYS[3]) > tonumber(ARGV[4]) do " +
+            "  local oldest = redis.call('ZPOPMIN', KEYS[3])[1] " +
+            "  if ARGV[5] == '1' then " +
+            "    local target = redis.call('GET', oldest) " +
+            "    if target then redis.call('ZREM', KEYS[2], target) redis.call('DEL', target) end " +
+            "  end " +
+            "  if redis.call('DEL', oldest) == 1 then table.insert(evicted, oldest) end " +
+            "  redis.call('ZREM', KEYS[2], oldest) " +
+            "end " +
+            "return {redis.call('ZCARD', KEYS[3]), unpack(evicted)}";
+
+    /**
+     * 脚本公共函数：按记录中的 userId 从用户索引中移除令牌键，返回用户索引键。
+     * 只有令牌记录（JSON）带 userId，家族指针等其他值不做处理
+     */
+    private static final String UNINDEX_FUNCTION =
+            "local function unindex(key, prefix) " +
+            "  local record = redis.call('GET', key) " +
+            "  if not record then return nil end " +
+            "  local ok, user = pcall(cjson.decode, record) " +
+            "  if ok and type(user) == 'table' and type(user.userId) == 'number' then " +
+            "    local index = prefix .. string.format('%d', user.userId) " +
+            "    redis.call('ZREM', index, key) " +
+            "    return index " +
+            "  end " +
+            "  return nil " +
+            "end ";
+
+    private static final String DELETE_SCRIPT = UNINDEX_FUNCTION +
+            "unindex(KEYS[1], ARGV[1]) " +
+            "return redis.call('DEL', KEYS[1])";
+
+    private static final String REVOKE_SCRIPT =
+            "local members = redis.call('ZRANGE', KEYS[1], 0, -1) " +
+            "for _, key in ipairs(members) do redis.call('DEL', key) end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "return #members";
+
+    /**
+     * 刷新令牌轮换。家族指针与旧令牌不一致时，旧令牌在已轮换集合 KEYS[4] 中说明是重放，删除家族及其当前令牌；
+     * 不在集合中说明不是该家族签发的令牌，直接返回 nil。
+     * 新令牌按记录中的 userId 登记到用户索引并移除旧令牌（Redis 内置 cjson 解析记录），
+     * 会话索引 ARGV[5] .. userId 的有效期随家族指针一起延长（ARGV[5] 为空串时跳过）。
+     * ARGV[3] 为当前时间，ARGV[4] 为新令牌过期时间（毫秒）
+     */
+    private static final String ROTATE_SCRIPT = UNINDEX_FUNCTION +
+            "local head = redis.call('GET', KEYS[1]) " +
+            "if not head then return nil end " +
+            "local retired = string.sub(redis.sha1hex(KEYS[2]), 1, 16) " +
+            "if head ~= KEYS[2] then " +
+            "  if redis.call('SISMEMBER', KEYS[4], retired) == 0 then return nil end " +
+            "  local headIndex = unindex(head, ARGV[2]) " +
+            "  if headIndex then redis.call('ZREM', headIndex, KEYS[1]) end " +
+            "  redis.call('DEL', KEYS[1], head, KEYS[4]) " +
+            "  return '" + REUSED_MARKER + "' " +
+            "end " +
+            "local record = redis.call('GET', KEYS[2]) " +
+            "if not record then return nil end " +
+            "redis.call('DEL', KEYS[2]) " +
+            "redis.call('SET', KEYS[3], record, 'EX', ARGV[1]) " +
+            "redis.call('SET', KEYS[1], KEYS[3], 'EX', ARGV[1]) " +
+            "redis.call('SADD', KEYS[4], retired) " +
+            "redis.call('EXPIRE', KEYS[4], ARGV[1]) " +
+            "local ok, user = pcall(cjson.decode, record) " +
+            "if ok and type(user) == 'table' and type(user.userId) == 'number' then " +
+            "  local index = ARGV[2] .. string.format('%d', user.userId) " +
+            "  redis.call('ZREM', index, KEYS[2]) " +
+            "  redis.call('ZREMRANGEBYSCORE', index, '-inf', '(' .. ARGV[3]) " +
+            "  redis.call('ZADD', index, ARGV[4], KEYS[3]) " +
+            "  if redis.call('TTL', index) < tonumber(ARGV[1]) then redis.call('EXPIRE', index, ARGV[1]) end " +
+            "  if ARGV[5] ~= '' then " +
+            "    local sessions = ARGV[5] .. string.format('%d', user.userId) " +
+            "    if redis.call('TTL', sessions) < tonumber(ARGV[1]) then redis.call('EXPIRE', sessions, ARGV[1]) end " +
+            "  end " +
+            "end " +
+            "return record";
+
+    private final RedissonClient redissonClient;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    @Value("${token.redis.read-timeout:200}")  // 毫秒
+    private long readTimeout;
+
+    @Value("${token.redis.write-timeout:500}")  // 毫秒
+    private long writeTimeout;
+
+    /**
+     * 脚本按令牌记录和前缀在脚本内拼出索引键、淘汰目标等键，未全部通过 KEYS 声明，
+     * 在 Redis Cluster 中这些键可能落在其他槽位上，因此拒绝以集群模式启动
+     */
+    @PostConstruct
+    public void init() {
+        if (redissonClient.getConfig().isClusterConfig()) {
+            throw new IllegalStateException(
+                    "token.store=%s requires a standalone, master/replica or sentinel Redis; Redis Cluster is not supported"
+                            .formatted("redis"));
+        }
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl, Long userId) {
+        if (userId == null) {
+            circuitBreaker.execute(() -> bucket(key).setAsync(value, ttl), writeTimeout);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        circuitBreaker.execute(() -> script().evalAsync(
+                RScript.Mode.READ_WRITE, PUT_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(key, userIndexKey(userId)),
+                value, String.valueOf(ttl.toSeconds()), String.valueOf(now), String.valueOf(now + ttl.toMillis())
+        ), writeTimeout);
+    }
+
+    @Override
+    public SessionPut putSession(String key, String value, Duration ttl, Long userId,
+                                 String sessionIndexKey, int maxSessions, boolean cascade) {
+        long now = System.currentTimeMillis();
+        List<Object> result = circuitBreaker.execute(() -> script().<List<Object>>evalAsync(
+                RScript.Mode.READ_WRITE, PUT_SESSION_SCRIPT, RScript.ReturnType.MULTI,
+                List.of(key, userIndexKey(userId), sessionIndexKey),
+                value, String.valueOf(ttl.toSeconds()), String.valueOf(now),
+                String.valueOf(maxSessions), cascade ? "1" : "0", String.valueOf(now + ttl.toMillis())
+        ), writeTimeout);
+        List<String> evicted = result.subList(1, result.size()).stream().map(String::valueOf).toList();
+        return new SessionPut(((Number) result.get(0)).intValue(), evicted);
+    }
+
+    @Override
+    public String get(String key) {
+        return circuitBreaker.execute(() -> bucket(key).getAsync(), readTimeout);
+    }
+
+    @Override
+    public List<String> getAll(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        Map<String, String> values = circuitBreaker.execute(() -> redissonClient.getBuckets(StringCodec.INSTANCE)
+                .<String>getAsync(keys.toArray(String[]::new)), readTimeout);
+        return keys.stream().map(values::get).toList();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return circuitBreaker.execute(() -> bucket(key).isExistsAsync(), readTimeout);
+    }
+
+    @Override
+    public boolean delete(String key) {
+        Long deleted = circuitBreaker.execute(() -> script().<Long>evalAsync(
+                RScript.Mode.READ_WRITE, DELETE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(key), USER_INDEX_PREFIX
+        ), writeTimeout);
+        return deleted != null && deleted > 0;
+    }
+
+    @Override
+    public void renew(Map<String, Long> keys, Duration ttl, String sessionIndexPrefix) {
+        double expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        circuitBreaker.execute(() -> {
+            RBatch batch = redissonClient.createBatch(BatchOptions.defaults().skipResult());
+            Set<Long> userIds = new HashSet<>();
+            keys.forEach((key, userId) -> {
+                batch.getBucket(key, StringCodec.INSTANCE).expireAsync(ttl);
+                if (userId != 0L) {
+                    // 只更新仍在索引中的成员（ZADD XX），否则续期后的令牌会被当作已过期清理
+                    batch.getScoredSortedSet(userIndexKey(userId), StringCodec.INSTANCE).addIfExistsAsync(expiresAt, key);
+                    userIds.add(userId);
+                }
+            });
+            for (Long userId : userIds) {
+                batch.getScoredSortedSet(userIndexKey(userId), StringCodec.INSTANCE).expireIfGreaterAsync(ttl);
+                if (sessionIndexPrefix != null) {
+                    batch.getScoredSortedSet(sessionIndexPrefix + userId, StringCodec.INSTANCE).expireIfGreaterAsync(ttl);
+                }
+            }
+            return batch.executeAsync();
+        }, writeTimeout);
+    }
+
+    @Override
+    public int revokeByUser(Long userId) {
+        Long deleted = circuitBreaker.execute(() -> script().<Long>evalAsync(
+                RScript.Mode.READ_WRITE, REVOKE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(userIndexKey(userId))
+        ), writeTimeout);
+        return deleted != null ? deleted.intValue() : 0;
+    }
+
+    @Override
+    public Rotation rotate(String familyKey, String oldKey, String newKey, Duration ttl, String sessionIndexPrefix) {
+        long now = System.currentTimeMillis();
+        String result = circuitBreaker.execute(() -> script().<String>evalAsync(
+                RScript.Mode.READ_WRITE, ROTATE_SCRIPT, RScript.ReturnType.VALUE,
+                List.of(familyKey, oldKey, newKey, familyKey + RETIRED_SUFFIX),
+                String.valueOf(ttl.toSeconds()), USER_INDEX_PREFIX, String.valueOf(now), String.valueOf(now + ttl.toMillis()),
+                sessionIndexPrefix != null ? sessionIndexPrefix : ""
+        ), writeTimeout);
+        if (result == null) {
+            return Rotation.invalid();
+        }
+        return REUSED_MARKER.equals(result) ? Rotation.reused() : Rotation.rotated(result);
+    }
+
+    private RBucket<String> bucket(String key) {
+        return redissonClient.getBucket(key, StringCodec.INSTANCE);
+    }
+
+    private RScript script() {
+        return redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    private static String userIndexKey(Long userId) {
+        return USER_INDEX_PREFIX + userId;
+    }
+}
@@ -0,0 +1,88 @@
+package net.bbq.falsework.store;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 令牌存储 SPI。通过 token.store 选择实现：redis（默认，多节点共享）、redis-bucketed（分桶布局，内存占用更低，需要 Redis 7.4+）
+ * 或 local（单节点，进程内存储）。
+ * key 为完整的令牌键（如 auth:token:xxx），value 为序列化后的令牌记录。
+ */
+public interface TokenStore {
+
+    /**
+     * 保存令牌记录。userId 不为 null 时同时登记到该用户的令牌索引，用于按用户吊销
+     */
+    void put(String key, String value, Duration ttl, Long userId);
+
+    /**
+     * 保存会话类令牌：在 put 的基础上登记到 sessionIndexKey，超过 maxSessions 时按签发顺序淘汰最早的记录，
+     * 检查与淘汰在同一个原子操作内完成。cascade 为 true 表示记录的值本身是另一个键（如刷新令牌家族指针），淘汰时一并删除
+     */
+    SessionPut putSession(String key, String value, Duration ttl, Long userId,
+                          String sessionIndexKey, int maxSessions, boolean cascade);
+
+    /**
+     * 读取令牌记录，不存在或已过期返回 null
+     */
+    String get(String key);
+
+    /**
+     * 批量读取令牌记录，一次往返完成（Redis 为 MGET 或管道）。结果与 keys 顺序一致，不存在或已过期的位置为 null
+     */
+    List<String> getAll(List<String> keys);
+
+    boolean exists(String key);
+
+    boolean delete(String key);
+
+    /**
+     * 批量续期：key -> userId（0 表示未登记用户索引）。
+     * sessionIndexPrefix 不为 null 时，会话索引 sessionIndexPrefix + userId 的有效期一并延长到不短于 ttl
+     */
+    void renew(Map<String, Long> keys, Duration ttl, String sessionIndexPrefix);
+
+    /**
+     * 吊销该用户的全部令牌，返回删除的数量
+     */
+    int revokeByUser(Long userId);
+
+    /**
+     * 原子地轮换刷新令牌。familyKey 保存家族当前有效的令牌键：
+     * oldKey 为当前令牌时，把记录迁移到 newKey 并推进家族指针，oldKey 记入家族的已轮换令牌集合；
+     * oldKey 在已轮换令牌集合中（重放）时作废整个家族，返回 REUSED；
+     * oldKey 从未在该家族签发过（如伪造的令牌）时返回 INVALID，不影响家族。
+     * 轮换成功且 sessionIndexPrefix 不为 null 时，登记家族的会话索引 sessionIndexPrefix + userId 的有效期一并延长到不短于 ttl。
+     */
+    Rotation rotate(String familyKey, String oldKey, String newKey, Duration ttl, String sessionIndexPrefix);
+
+    /**
+     * 会话登记结果：sessions 为登记后的会话数（Redis 实现中可能包含尚未清理的已过期成员，是上界），
+     * evictedKeys 为本次淘汰的键
+     */
+    record SessionPut(int sessions, List<String> evictedKeys) {
+    }
+
+    /**
+     * 轮换结果，ROTATED 时 value 为令牌记录
+     */
+    record Rotation(Status status, String value) {
+
+        public enum Status {
+            ROTATED, REUSED, INVALID
+        }
+
+        public static Rotation rotated(String value) {
+            return new Rotation(Status.ROTATED, value);
+        }
+
+        public static Rotation reused() {
+            return new Rotation(Status.REUSED, null);
+        }
+
+        public static Rotation invalid() {
+            return new Rotation(Status.INVALID, null);
+        }
+    }
+}
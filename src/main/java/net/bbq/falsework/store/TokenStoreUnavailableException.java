@@ -0,0 +1,11 @@
+package net.bbq.falsework.store;
+
+/**
+ * 令牌存储不可用（熔断、超时或连接失败）
+ */
+public class TokenStoreUnavailableException extends RuntimeException {
+
+    public TokenStoreUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -3,10 +3,13 @@ package net.bbq.falsework.util;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import net.bbq.falsework.dto.TokenUser;
-import net.bbq.falsework.service.TokenService;
+import net.bbq.falsework.security.AccessTokenResolver;
+import net.bbq.falsework.security.TokenAuthentication;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -26,13 +29,19 @@ public class SecurityUtils implements ApplicationContextAware {
      * 获取当前登录用户信息
      */
     public static TokenUser getCurrentUser() {
+        // 已通过过滤器认证的请求直接使用内存中的认证信息
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof TokenAuthentication tokenAuthentication) {
+            return tokenAuthentication.getTokenUser();
+        }
+
         try {
-            TokenService tokenService = getBean(TokenService.class);
+            AccessTokenResolver tokenResolver = getBean(AccessTokenResolver.class);
             String token = extractTokenFromRequest();
             if (token == null) {
                 return null;
             }
-            return tokenService.getUserByToken(token);
+            return tokenResolver.resolve(token);
         } catch (Exception e) {
             log.error("Failed to get current user", e);
             return null;
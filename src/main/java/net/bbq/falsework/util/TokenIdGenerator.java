@@ -0,0 +1,62 @@
+package net.bbq.falsework.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 令牌标识生成器：CSPRNG 随机字节编码为定长、URL 安全、无填充的 Base64 字符串。
+ * 每个线程持有独立的 SecureRandom（DRBG）和预分配的缓冲区，并发签发时不争用同一把锁，
+ * 也不经过 UUID 的格式化和字符串替换。输出只包含 [A-Za-z0-9_-]，不含 '.'。
+ */
+public final class TokenIdGenerator {
+
+    /** 默认 256 位熵，编码后 43 个字符 */
+    public static final int DEFAULT_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private TokenIdGenerator() {
+    }
+
+    /**
+     * 生成 256 位随机标识（43 个字符）
+     */
+    public static String next() {
+        return next(DEFAULT_BYTES);
+    }
+
+    /**
+     * 生成 bytes 个随机字节的标识，编码长度为 ceil(bytes * 4 / 3)
+     */
+    public static String next(int bytes) {
+        if (bytes <= 0 || bytes > DEFAULT_BYTES) {
+            throw new IllegalArgumentException("bytes must be between 1 and " + DEFAULT_BYTES);
+        }
+        State state = STATE.get();
+        byte[] raw = bytes == DEFAULT_BYTES ? state.raw : new byte[bytes];
+        state.random.nextBytes(raw);
+        int length = ENCODER.encode(raw, state.encoded);
+        // 输出均为 ASCII，按 Latin-1 构造时直接复制为紧凑字符串
+        return new String(state.encoded, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private static final class State {
+
+        private final SecureRandom random = newRandom();
+        private final byte[] raw = new byte[DEFAULT_BYTES];
+        private final byte[] encoded = new byte[(DEFAULT_BYTES * 4 + 2) / 3];
+
+        private static SecureRandom newRandom() {
+            try {
+                // DRBG 实例之间互不共享状态；默认的 NativePRNG 在所有实例间共用一把全局锁
+                return SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                return new SecureRandom();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package net.bbq.falsework.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TCP Vegas 风格的自适应并发上限：以观测到的最小响应时间作为无排队基准（rttNoLoad），
+ * 按 limit * (1 - rttNoLoad / rtt) 估算排队长度。排队少时增大上限，排队多或请求失败时减小上限，
+ * 下游（如数据库）变慢时在途请求数随之收缩，多出的请求被立即拒绝而不是在 Tomcat 中排队。
+ *
+ * 基准每隔约 probeMultiplier * limit 个样本重置一次，使下游性能长期变化后基准能跟上。
+ *
+ * 指标：concurrency.limit{name}，concurrency.in_flight{name}，concurrency.rejected{name}
+ */
+public class VegasLimit {
+
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile double limit;
+
+    /** 以下字段由 this 保护 */
+    private long rttNoLoad;
+    private long probeCountdown;
+
+    public VegasLimit(String name, int initialLimit, int minLimit, int maxLimit, MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.probeCountdown = nextProbeCountdown();
+        Gauge.builder("concurrency.limit", this, VegasLimit::getLimit)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.in_flight", inFlight, AtomicInteger::get)
+                .tag("name", name)
+                .register(meterRegistry);
+        this.rejected = meterRegistry.counter("concurrency.rejected", "name", name);
+    }
+
+    /**
+     * 在途请求数未达上限时占用一个名额，返回占用时的在途数（含本请求）；已达上限返回 -1
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 释放名额并提交一个样本：rttNanos 为处理耗时，inFlightAtStart 为 tryAcquire 的返回值，
+     * dropped 表示请求失败（异常或 500/502/504），视为过载信号
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        update(rttNanos, inFlightAtStart, dropped);
+    }
+
+    /**
+     * 只释放名额，不提交样本（如已转为异步处理的长连接，耗时不反映下游负载）
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rtt, int inFlightAtStart, boolean dropped) {
+        if (rtt <= 0) {
+            return;
+        }
+        if (--probeCountdown <= 0) {
+            probeCountdown = nextProbeCountdown();
+            rttNoLoad = rtt;
+            return;
+        }
+        if (rttNoLoad == 0 || rtt < rttNoLoad) {
+            rttNoLoad = rtt;
+            return;
+        }
+
+        double current = limit;
+        int step = Math.max(1, (int) Math.log10(current));
+        double next;
+        if (dropped) {
+            next = current - step;
+        } else if (inFlightAtStart * 2 < current) {
+            // 并发远低于上限时排队估算没有意义，上限保持不变，避免无限增长
+            return;
+        } else {
+            int queue = (int) Math.ceil(current * (1 - (double) rttNoLoad / rtt));
+            if (queue <= step) {
+                next = current + 6 * step;
+            } else if (queue < 3 * step) {
+                next = current + step;
+            } else if (queue > 6 * step) {
+                next = current - step;
+            } else {
+                return;
+            }
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private long nextProbeCountdown() {
+        return (long) (PROBE_MULTIPLIER * limit * ThreadLocalRandom.current().nextDouble(0.5, 1.0));
+    }
+}
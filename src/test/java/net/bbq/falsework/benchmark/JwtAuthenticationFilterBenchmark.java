@@ -0,0 +1,132 @@
+package net.bbq.falsework.benchmark;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.bbq.falsework.dto.TokenUser;
+import net.bbq.falsework.security.AccessTokenResolver;
+import net.bbq.falsework.security.JwtAuthenticationFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthenticationFilter 每请求分配量：baseline 为优化前的过滤器实现，
+ * authenticated 为当前实现处理带令牌的请求，publicPath 为公开接口直接跳过。
+ * 令牌解析替换为固定返回值，只测过滤器本身的开销；以 -prof gc 运行，看 gc.alloc.rate.norm（字节/次）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String TOKEN = "Bearer 3q2-7wX9aB4cD5eF6gH7iJ8kL9mN0oP1qR2sT3uV4w";
+
+    private final FilterChain chain = (request, response) -> {
+    };
+
+    private OncePerRequestFilter baseline;
+    private OncePerRequestFilter current;
+    private MockHttpServletRequest apiRequest;
+    private MockHttpServletRequest publicRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setup() {
+        TokenUser tokenUser = new TokenUser(1L, "alice", "USER", "USER,ADMIN", 0L);
+        AccessTokenResolver resolver = new AccessTokenResolver(null, null, null) {
+            @Override
+            public TokenUser resolve(String token) {
+                return tokenUser;
+            }
+        };
+        baseline = new BaselineFilter(resolver);
+        current = new JwtAuthenticationFilter(resolver);
+
+        apiRequest = new MockHttpServletRequest("GET", "/api/users/1");
+        apiRequest.setServletPath("/api/users/1");
+        apiRequest.addHeader("Authorization", TOKEN);
+
+        publicRequest = new MockHttpServletRequest("POST", "/api/auth/login");
+        publicRequest.setServletPath("/api/auth/login");
+        publicRequest.addHeader("Authorization", TOKEN);
+
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Object baseline() throws ServletException, IOException {
+        return run(baseline, apiRequest);
+    }
+
+    @Benchmark
+    public Object authenticated() throws ServletException, IOException {
+        return run(current, apiRequest);
+    }
+
+    @Benchmark
+    public Object publicPath() throws ServletException, IOException {
+        return run(current, publicRequest);
+    }
+
+    private Object run(OncePerRequestFilter filter, HttpServletRequest request) throws ServletException, IOException {
+        filter.doFilter(request, response, chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    /**
+     * 优化前的实现（user-031 之前）：每个请求新建权限列表、SimpleGrantedAuthority 和 WebAuthenticationDetailsSource
+     */
+    static class BaselineFilter extends OncePerRequestFilter {
+
+        private final AccessTokenResolver tokenResolver;
+
+        BaselineFilter(AccessTokenResolver tokenResolver) {
+            this.tokenResolver = tokenResolver;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            String bearerToken = request.getHeader("Authorization");
+            if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+                TokenUser tokenUser = tokenResolver.resolve(bearerToken.substring(7));
+                if (tokenUser != null) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            tokenUser.getUserId(),
+                            null,
+                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + tokenUser.getRole()))
+                    );
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.bbq.falsework.benchmark;
+
+import net.bbq.MyFalseworkApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 冷启动耗时：每次测量在新的 JVM 中启动一次应用上下文（含内嵌 Web 服务器），刷新完成后关闭。
+ * 对比默认配置与 fast-start 运行时 profile；AOT + CDS 需要打包后的 jar，不在此基准内，测法见 BENCHMARKS.md。
+ *
+ * 需要可达的数据库和 Redis，连接参数以系统属性传入，例如
+ * -jvmArgsAppend "-Dspring.datasource.url=jdbc:postgresql://127.0.0.1:5432/postgres -Dspring.data.redis.host=127.0.0.1
+ * -Dclient.secret-pepper=benchmark"。
+ * 数据库应已升级到最新版本，否则第一次启动包含建表时间。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Param({"default", "fast-start"})
+    private String profile;
+
+    @Benchmark
+    public void start() {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(MyFalseworkApplication.class);
+        if (!"default".equals(profile)) {
+            builder.profiles(profile);
+        }
+        try (ConfigurableApplicationContext context = builder.run("--server.port=0", "--spring.main.banner-mode=off")) {
+            context.getId();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package net.bbq.falsework.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.bbq.falsework.store.LocalTokenStore;
+import net.bbq.falsework.store.RedisCircuitBreaker;
+import net.bbq.falsework.store.RedisTokenStore;
+import net.bbq.falsework.store.TokenStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌存储单次操作耗时：local（进程内）对比 redis（经网络，含熔断器和 Lua 脚本）。
+ * redis 需要一个可写的测试实例，默认 redis://127.0.0.1:6379，可用 -jvmArgsAppend -Dbenchmark.redis.address=... 指定；
+ * 基准开始前会执行 FLUSHDB，不要指向生产实例。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenStoreBenchmark {
+
+    private static final int KEYS = 10_000;
+    private static final Duration TTL = Duration.ofHours(1);
+    private static final String RECORD = "{\"userId\":%d,\"username\":\"user%d\",\"role\":\"USER\",\"roles\":\"USER\",\"permissions\":3}";
+
+    @Param({"local", "redis"})
+    private String store;
+
+    private TokenStore tokenStore;
+    private RedissonClient redissonClient;
+    private String[] keys;
+    private String[] records;
+
+    @Setup
+    public void setup() {
+        if ("local".equals(store)) {
+            LocalTokenStore local = new LocalTokenStore();
+            local.init();
+            tokenStore = local;
+        } else {
+            Config config = new Config();
+            config.useSingleServer().setAddress(System.getProperty("benchmark.redis.address", "redis://127.0.0.1:6379"));
+            config.setUseScriptCache(true);
+            redissonClient = Redisson.create(config);
+            redissonClient.getKeys().flushdb();
+
+            RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 5);
+            ReflectionTestUtils.setField(circuitBreaker, "openDuration", 10_000L);
+            circuitBreaker.init();
+            tokenStore = new RedisTokenStore(redissonClient, circuitBreaker);
+            ReflectionTestUtils.setField(tokenStore, "readTimeout", 1000L);
+            ReflectionTestUtils.setField(tokenStore, "writeTimeout", 1000L);
+        }
+
+        keys = new String[KEYS];
+        records = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "auth:token:" + String.format("%043d", i);
+            records[i] = RECORD.formatted(i % 1000 + 1, i);
+            tokenStore.put(keys[i], records[i], TTL, (long) (i % 1000 + 1));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (tokenStore instanceof LocalTokenStore local) {
+            local.destroy();
+        }
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            next = 0;
+        }
+
+        int advance() {
+            next = (next + 1) % KEYS;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public String get(Cursor cursor) {
+        return tokenStore.get(keys[cursor.advance()]);
+    }
+
+    @Benchmark
+    public void put(Cursor cursor) {
+        int i = cursor.advance();
+        tokenStore.put(keys[i], records[i], TTL, (long) (i % 1000 + 1));
+    }
+}
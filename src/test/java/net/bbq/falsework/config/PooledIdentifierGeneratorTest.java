@@ -0,0 +1,116 @@
+package net.bbq.falsework.config;
+
+import net.bbq.falsework.entity.Client;
+import net.bbq.falsework.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PooledIdentifierGeneratorTest {
+
+    private static final String NEXTVAL = "SELECT nextval('seq_user')";
+    private static final String INCREMENT = "SELECT increment_by FROM pg_sequences WHERE sequencename = ?";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PooledIdentifierGenerator generator = new PooledIdentifierGenerator(jdbcTemplate);
+
+    /** 模拟 INCREMENT BY 50 的序列：每次 nextval 返回下一段的起点 */
+    private final AtomicLong sequence = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        when(jdbcTemplate.queryForObject(INCREMENT, Long.class, "seq_user")).thenReturn(50L);
+        when(jdbcTemplate.queryForObject(NEXTVAL, Long.class)).thenAnswer(invocation -> sequence.getAndAdd(50));
+    }
+
+    @Test
+    void allocatesConsecutiveIdsWithinABlock() {
+        List<Long> ids = IntStream.range(0, 50).mapToObj(i -> generator.nextUserId()).toList();
+
+        assertThat(ids).containsExactlyElementsOf(IntStream.rangeClosed(1, 50).mapToObj(i -> (long) i).toList());
+        verify(jdbcTemplate, times(1)).queryForObject(NEXTVAL, Long.class);
+    }
+
+    @Test
+    void reservesNextBlockWhenExhausted() {
+        for (int i = 0; i < 50; i++) {
+            generator.nextUserId();
+        }
+
+        assertThat(generator.nextUserId()).isEqualTo(51L);
+        verify(jdbcTemplate, times(2)).queryForObject(NEXTVAL, Long.class);
+        verify(jdbcTemplate, times(1)).queryForObject(eq(INCREMENT), eq(Long.class), anyString());
+    }
+
+    @Test
+    void concurrentCallersNeverShareAnId() throws Exception {
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        try {
+            Callable<Void> task = () -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextUserId());
+                }
+                return null;
+            };
+            List<Future<Void>> futures = executor.invokeAll(Collections.nCopies(threads, task));
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(threads * perThread);
+        // 每段 50 个 ID 全部用完才会取下一段
+        verify(jdbcTemplate, times(threads * perThread / 50)).queryForObject(NEXTVAL, Long.class);
+    }
+
+    @Test
+    void otherEntitiesUseDefaultGenerator() {
+        Set<Long> ids = new HashSet<>();
+        ids.add(generator.nextId(new Client()).longValue());
+        ids.add(generator.nextId(new Client()).longValue());
+
+        assertThat(ids).hasSize(2);
+        verify(jdbcTemplate, never()).queryForObject(NEXTVAL, Long.class);
+    }
+
+    @Test
+    void userEntityUsesSequence() {
+        assertThat(generator.nextId(new User())).isEqualTo(1L);
+    }
+
+    @Test
+    void rejectsInvalidIncrement() {
+        when(jdbcTemplate.queryForObject(INCREMENT, Long.class, "seq_user")).thenReturn(0L);
+
+        assertThatThrownBy(generator::nextUserId)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("seq_user");
+    }
+}
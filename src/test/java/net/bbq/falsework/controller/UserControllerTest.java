@@ -0,0 +1,58 @@
+package net.bbq.falsework.controller;
+
+import net.bbq.falsework.dto.UserPatchRequest;
+import net.bbq.falsework.dto.UserUpdateRequest;
+import net.bbq.falsework.service.UserNotFoundException;
+import net.bbq.falsework.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserControllerTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final UserController controller = new UserController(userService);
+
+    @Test
+    void duplicateUsernameIsConflict() {
+        when(userService.updateUser(eq(7L), any(), any(), any(), any()))
+                .thenThrow(new DuplicateKeyException("duplicate key"));
+
+        assertThat(controller.updateUser(7L, new UserUpdateRequest()).getCode()).isEqualTo(409);
+    }
+
+    @Test
+    void missingUserIsNotFound() {
+        UserPatchRequest request = new UserPatchRequest();
+        request.setEmail("alice@example.com");
+        when(userService.patchUser(eq(7L), any(), any(), any(), any())).thenThrow(new UserNotFoundException(7L));
+
+        assertThat(controller.patchUser(7L, request).getCode()).isEqualTo(404);
+    }
+
+    @Test
+    void unexpectedErrorsPropagate() {
+        when(userService.updateUser(eq(7L), any(), any(), any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThatThrownBy(() -> controller.updateUser(7L, new UserUpdateRequest()))
+                .isInstanceOf(QueryTimeoutException.class);
+    }
+
+    @Test
+    void emptyPatchIsRejected() {
+        UserPatchRequest request = new UserPatchRequest();
+        request.setVersion(3L);
+
+        assertThat(controller.patchUser(7L, request).getCode()).isEqualTo(400);
+        verifyNoInteractions(userService);
+    }
+}
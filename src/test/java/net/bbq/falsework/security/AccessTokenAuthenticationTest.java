@@ -0,0 +1,120 @@
+package net.bbq.falsework.security;
+
+import jakarta.servlet.Filter;
+import net.bbq.falsework.config.SecurityConfig;
+import net.bbq.falsework.dto.TokenUser;
+import net.bbq.falsework.service.TokenRevocationService;
+import net.bbq.falsework.service.TokenService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringJUnitWebConfig(AccessTokenAuthenticationTest.TestConfig.class)
+class AccessTokenAuthenticationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+    }
+
+    @Test
+    void accessTokenReachesProtectedEndpoint() throws Exception {
+        String token = tokenProvider.generateToken(new TokenUser(7L, "alice", "USER"));
+
+        mockMvc.perform(get("/api/ping").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void refreshTokenIsRejectedAsAccessToken() throws Exception {
+        String token = tokenProvider.generateRefreshToken(7L, "alice");
+
+        mockMvc.perform(get("/api/ping").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void missingTokenIsUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/ping"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @Import({SecurityConfig.class, JwtAuthenticationFilter.class, AccessTokenResolver.class, PingController.class})
+    static class TestConfig {
+
+        @Bean
+        JwtTokenProvider jwtTokenProvider() throws Exception {
+            JwtKeyManager keyManager = new JwtKeyManager(new DefaultResourceLoader());
+            ReflectionTestUtils.setField(keyManager, "jwtSecret", "testSecretKeyForJwtTokenGenerationMustBeLongEnough");
+            ReflectionTestUtils.setField(keyManager, "algorithm", "HS256");
+            ReflectionTestUtils.setField(keyManager, "keyLocations", new String[0]);
+            ReflectionTestUtils.setField(keyManager, "activeKid", "");
+            keyManager.init();
+
+            JwtTokenProvider tokenProvider = new JwtTokenProvider(keyManager);
+            ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 60_000L);
+            ReflectionTestUtils.setField(tokenProvider, "jwtRefreshExpiration", 600_000L);
+            tokenProvider.init();
+            return tokenProvider;
+        }
+
+        @Bean
+        TokenService tokenService() {
+            return mock(TokenService.class);
+        }
+
+        @Bean
+        TokenRevocationService tokenRevocationService() {
+            return mock(TokenRevocationService.class);
+        }
+
+        @Bean
+        UserDetailsService userDetailsService() {
+            return mock(UserDetailsService.class);
+        }
+
+        @Bean
+        PermissionEvaluator permissionEvaluator() {
+            return mock(PermissionEvaluator.class);
+        }
+    }
+
+    @RestController
+    static class PingController {
+
+        @GetMapping("/api/ping")
+        String ping() {
+            return "pong";
+        }
+    }
+}
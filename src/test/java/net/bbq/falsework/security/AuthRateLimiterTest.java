@@ -0,0 +1,76 @@
+package net.bbq.falsework.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RedissonClient;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AuthRateLimiterTest {
+
+    private final RedissonClient redissonClient = mock(RedissonClient.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AuthRateLimiter rateLimiter = new AuthRateLimiter(redissonClient, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+        ReflectionTestUtils.setField(rateLimiter, "window", 60L);
+        ReflectionTestUtils.setField(rateLimiter, "ipPermits", 100L);
+        ReflectionTestUtils.setField(rateLimiter, "usernamePermits", 4L);
+        ReflectionTestUtils.setField(rateLimiter, "refreshPermits", 8L);
+        ReflectionTestUtils.setField(rateLimiter, "localFraction", 0.25);
+        ReflectionTestUtils.setField(rateLimiter, "offendersTracked", 10);
+        ReflectionTestUtils.setField(rateLimiter, "offendersReported", 3);
+        fromIp("10.0.0.1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void usernameLimitIsPerSourceIp() {
+        RRateLimiter limiter = mock(RRateLimiter.class);
+        when(redissonClient.getRateLimiter(anyString())).thenReturn(limiter);
+        when(limiter.tryAcquire()).thenReturn(true);
+
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.checkLogin("alice");
+        }
+        assertThatThrownBy(() -> rateLimiter.checkLogin("alice")).isInstanceOf(RateLimitExceededException.class);
+
+        fromIp("10.0.0.2");
+        rateLimiter.checkLogin("alice");
+    }
+
+    @Test
+    void redisOutageFallsBackToFractionOfLimit() {
+        when(redissonClient.getRateLimiter(anyString())).thenThrow(new IllegalStateException("connection refused"));
+
+        rateLimiter.checkRefresh();
+        rateLimiter.checkRefresh();
+        assertThatThrownBy(rateLimiter::checkRefresh).isInstanceOf(RateLimitExceededException.class);
+
+        assertThat(meterRegistry.counter("auth.ratelimit.rejected", "dimension", "refresh", "source", "fallback").count())
+                .isEqualTo(1);
+    }
+
+    private static void fromIp(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(ip);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
@@ -0,0 +1,87 @@
+package net.bbq.falsework.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import net.bbq.falsework.util.VegasLimit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final VegasLimit usersLimit = new VegasLimit("users", 20, 1, 100, meterRegistry);
+    private final VegasLimit defaultLimit = new VegasLimit("default", 20, 1, 100, meterRegistry);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+            List.of(new ConcurrencyLimitFilter.RouteGroup("users", List.of("/api/users"), usersLimit)), defaultLimit);
+
+    @Test
+    void routesByPathWithinContext() throws Exception {
+        MockHttpServletRequest request = request();
+        int[] inFlight = new int[2];
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            inFlight[0] = usersLimit.getInFlight();
+            inFlight[1] = defaultLimit.getInFlight();
+        });
+
+        assertThat(inFlight).containsExactly(1, 0);
+    }
+
+    @Test
+    void serviceUnavailableIsNotAnOverloadSignal() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            respond(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+
+        assertThat(usersLimit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void serverErrorsShrinkTheLimit() throws Exception {
+        // 第一个样本作为无排队基准，之后的样本耗时更长，不会被当作新的基准
+        filter.doFilter(request(), new MockHttpServletResponse(), (req, res) -> {
+        });
+        respond(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        respond(HttpServletResponse.SC_BAD_GATEWAY);
+        respond(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+
+        assertThat(usersLimit.getLimit()).isEqualTo(17);
+    }
+
+    @Test
+    void rejectsWhenLimitIsReached() throws Exception {
+        VegasLimit tiny = new VegasLimit("tiny", 1, 1, 1, meterRegistry);
+        ConcurrencyLimitFilter limited = new ConcurrencyLimitFilter(List.of(), tiny);
+        tiny.tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        limited.doFilter(request(), response, (req, res) -> {
+            throw new AssertionError("should not reach the chain");
+        });
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    private void respond(int status) throws Exception {
+        FilterChain chain = (req, res) -> {
+            LockSupport.parkNanos(2_000_000);
+            ((HttpServletResponse) res).setStatus(status);
+        };
+        filter.doFilter(request(), new MockHttpServletResponse(), chain);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/api/users/1");
+        request.setContextPath("/app");
+        request.setServletPath("/api/users/1");
+        return request;
+    }
+}
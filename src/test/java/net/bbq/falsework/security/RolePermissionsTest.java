@@ -0,0 +1,34 @@
+package net.bbq.falsework.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RolePermissionsTest {
+
+    @Test
+    void combinesMasksOfAllRoles() {
+        RolePermissions rolePermissions = new RolePermissions(new MockEnvironment()
+                .withProperty("security.role-permissions.USER", "USER_READ, USER_WRITE")
+                .withProperty("security.role-permissions.CLIENT", "TOKEN_INTROSPECT")
+                .withProperty("security.role-permissions.ADMIN", "*"));
+        rolePermissions.init();
+
+        assertThat(rolePermissions.maskOf("ROLE_USER,CLIENT")).isEqualTo(
+                Permission.USER_READ.mask() | Permission.USER_WRITE.mask() | Permission.TOKEN_INTROSPECT.mask());
+        assertThat(rolePermissions.maskOf("USER,ADMIN")).isEqualTo(-1L);
+        assertThat(rolePermissions.maskOf("GUEST")).isZero();
+    }
+
+    @Test
+    void unknownPermissionFailsAtStartup() {
+        RolePermissions rolePermissions = new RolePermissions(new MockEnvironment()
+                .withProperty("security.role-permissions.USER", "USER_READ,USER_REED"));
+
+        assertThatThrownBy(rolePermissions::init)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("USER_REED");
+    }
+}
@@ -0,0 +1,98 @@
+package net.bbq.falsework.service;
+
+import net.bbq.falsework.entity.Client;
+import net.bbq.falsework.entity.User;
+import net.bbq.falsework.mapper.ClientMapper;
+import net.bbq.falsework.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClientRegistryServiceTest {
+
+    private final ClientMapper clientMapper = mock(ClientMapper.class);
+    private final UserMapper userMapper = mock(UserMapper.class);
+    private final ClientRegistryService service = new ClientRegistryService(clientMapper, userMapper);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "pepper", "test-pepper");
+        ReflectionTestUtils.setField(service, "cacheTtl", 60_000L);
+        ReflectionTestUtils.setField(service, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(service, "negativeCacheTtl", 60_000L);
+        service.init();
+        when(userMapper.selectById(7L)).thenReturn(new User());
+    }
+
+    @Test
+    void unknownClientIdIsLookedUpOnce() {
+        when(clientMapper.findActive("client_missing")).thenReturn(Optional.empty());
+
+        assertThat(service.verify("client_missing", "secret")).isEmpty();
+        assertThat(service.verify("client_missing", "secret")).isEmpty();
+
+        verify(clientMapper, times(1)).findActive("client_missing");
+    }
+
+    @Test
+    void provisionClearsNegativeEntry() {
+        when(clientMapper.findActive("client_new")).thenReturn(Optional.empty());
+        service.verify("client_new", "secret");
+
+        ClientRegistryService.ProvisionedClient provisioned = service.provision(7L, "client_new");
+        Client stored = new Client();
+        stored.setClientId("client_new");
+        stored.setUserId(7L);
+        stored.setUsername("alice");
+        stored.setSecretHash(captureSecretHash());
+        when(clientMapper.findActive("client_new")).thenReturn(Optional.of(stored));
+
+        assertThat(service.verify("client_new", provisioned.clientSecret()))
+                .hasValueSatisfying(client -> assertThat(client.username()).isEqualTo("alice"));
+    }
+
+    @Test
+    void concurrentDuplicateIsReportedAsExisting() {
+        when(clientMapper.insert(any(Client.class))).thenThrow(new DuplicateKeyException("duplicate key"));
+
+        assertThatThrownBy(() -> service.provision(7L, "client_taken"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("客户端ID已存在");
+    }
+
+    @Test
+    void missingPepperFailsStartup() {
+        ClientRegistryService unconfigured = new ClientRegistryService(clientMapper, userMapper);
+        ReflectionTestUtils.setField(unconfigured, "pepper", "");
+
+        assertThatThrownBy(unconfigured::init)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("client.secret-pepper");
+    }
+
+    @Test
+    void examplePepperFailsStartup() {
+        ClientRegistryService unconfigured = new ClientRegistryService(clientMapper, userMapper);
+        ReflectionTestUtils.setField(unconfigured, "pepper", "myClientSecretPepperChangeMeInProduction");
+
+        assertThatThrownBy(unconfigured::init).isInstanceOf(IllegalStateException.class);
+    }
+
+    private String captureSecretHash() {
+        ArgumentCaptor<Client> captor = ArgumentCaptor.forClass(Client.class);
+        verify(clientMapper).insert(captor.capture());
+        return captor.getValue().getSecretHash();
+    }
+}
@@ -0,0 +1,52 @@
+package net.bbq.falsework.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.bbq.falsework.store.TokenStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenServiceTest {
+
+    private static final String RECORD = "{\"userId\":7,\"username\":\"alice\",\"role\":\"USER\"}";
+
+    private final TokenStore tokenStore = mock(TokenStore.class);
+    private final TokenRenewalService renewalService = mock(TokenRenewalService.class);
+    private final TokenService tokenService = new TokenService(tokenStore, new ObjectMapper(), renewalService,
+            new SimpleMeterRegistry(), mock(TokenNearCache.class), mock(RefreshTokenPersistenceService.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tokenService, "singleFlightWaitTimeout", 1000L);
+        tokenService.init();
+    }
+
+    @Test
+    void introspectionLookupDoesNotRenew() {
+        when(tokenStore.getAll(List.of("auth:token:a", "auth:token:b"))).thenReturn(Arrays.asList(RECORD, null));
+
+        assertThat(tokenService.peekUsersByTokens(List.of("a", "b")))
+                .satisfiesExactly(user -> assertThat(user.getUserId()).isEqualTo(7L), user -> assertThat(user).isNull());
+        verify(renewalService, never()).touch(any(), anyLong());
+    }
+
+    @Test
+    void requestLookupRenews() {
+        when(tokenStore.get("auth:token:a")).thenReturn(RECORD);
+
+        assertThat(tokenService.getUserByToken("a").getUsername()).isEqualTo("alice");
+        verify(renewalService).touch("auth:token:a", 7L);
+    }
+}
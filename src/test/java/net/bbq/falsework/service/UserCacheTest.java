@@ -0,0 +1,63 @@
+package net.bbq.falsework.service;
+
+import net.bbq.falsework.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+
+    private final UserCache userCache = new UserCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userCache, "ttl", 60_000L);
+        ReflectionTestUtils.setField(userCache, "maxSize", 100);
+    }
+
+    @Test
+    void loadOverlappingInvalidationIsNotCached() {
+        UserCache.Ticket ticket = userCache.ticket(7L);
+        User stale = user(7L, "alice");
+        // 加载期间事务提交并失效
+        userCache.invalidate(7L);
+
+        userCache.put(stale, ticket);
+
+        assertThat(userCache.get(7L)).isNull();
+    }
+
+    @Test
+    void usernameLoadOverlappingAnyInvalidationIsNotCached() {
+        UserCache.Ticket ticket = userCache.ticket();
+        userCache.invalidate(7L);
+
+        userCache.put(user(7L, "alice"), ticket);
+
+        assertThat(userCache.getByUsername("alice")).isNull();
+    }
+
+    @Test
+    void callersGetTheirOwnCopy() {
+        User loaded = user(7L, "alice");
+        userCache.put(loaded, userCache.ticket(7L));
+
+        loaded.setUsername("changed");
+        userCache.get(7L).setEmail("changed@example.com");
+
+        User cached = userCache.get(7L);
+        assertThat(cached.getUsername()).isEqualTo("alice");
+        assertThat(cached.getEmail()).isEqualTo("alice@example.com");
+        assertThat(userCache.getByUsername("alice")).isNotSameAs(cached);
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,118 @@
+package net.bbq.falsework.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalTokenStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final String FAMILY = "auth:refresh-family:F";
+
+    private final LocalTokenStore tokenStore = new LocalTokenStore();
+
+    @BeforeEach
+    void setUp() {
+        tokenStore.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenStore.destroy();
+    }
+
+    @Test
+    void putSessionEvictsOldestBeyondLimit() {
+        tokenStore.putSession("auth:token:a", "{}", TTL, 7L, "auth:user-sessions:7", 2, false);
+        tokenStore.putSession("auth:token:b", "{}", TTL, 7L, "auth:user-sessions:7", 2, false);
+        TokenStore.SessionPut result = tokenStore.putSession("auth:token:c", "{}", TTL, 7L, "auth:user-sessions:7", 2, false);
+
+        assertThat(result.sessions()).isEqualTo(2);
+        assertThat(result.evictedKeys()).containsExactly("auth:token:a");
+        assertThat(tokenStore.exists("auth:token:a")).isFalse();
+        assertThat(tokenStore.revokeByUser(7L)).isEqualTo(2);
+    }
+
+    @Test
+    void cascadeEvictionDeletesTarget() {
+        tokenStore.put("auth:refresh:F.1", "{}", TTL, 7L);
+        tokenStore.putSession(FAMILY, "auth:refresh:F.1", TTL, 7L, "auth:user-refresh-families:7", 1, true);
+        tokenStore.putSession("auth:refresh-family:G", "auth:refresh:G.1", TTL, 7L, "auth:user-refresh-families:7", 1, true);
+
+        assertThat(tokenStore.getAll(List.of(FAMILY, "auth:refresh:F.1"))).containsOnlyNulls();
+    }
+
+    @Test
+    void rotateMovesRecordAndAdvancesFamily() {
+        startFamily();
+
+        TokenStore.Rotation rotation = tokenStore.rotate(FAMILY, "auth:refresh:F.1", "auth:refresh:F.2", TTL, null);
+
+        assertThat(rotation.status()).isEqualTo(TokenStore.Rotation.Status.ROTATED);
+        assertThat(rotation.value()).isEqualTo("{\"userId\":7}");
+        assertThat(tokenStore.get(FAMILY)).isEqualTo("auth:refresh:F.2");
+        assertThat(tokenStore.exists("auth:refresh:F.1")).isFalse();
+    }
+
+    @Test
+    void replayedTokenRevokesFamily() {
+        startFamily();
+        tokenStore.rotate(FAMILY, "auth:refresh:F.1", "auth:refresh:F.2", TTL, null);
+
+        TokenStore.Rotation rotation = tokenStore.rotate(FAMILY, "auth:refresh:F.1", "auth:refresh:F.3", TTL, null);
+
+        assertThat(rotation.status()).isEqualTo(TokenStore.Rotation.Status.REUSED);
+        assertThat(tokenStore.exists(FAMILY)).isFalse();
+        assertThat(tokenStore.exists("auth:refresh:F.2")).isFalse();
+    }
+
+    @Test
+    void forgedTokenLeavesFamilyIntact() {
+        startFamily();
+
+        TokenStore.Rotation rotation = tokenStore.rotate(FAMILY, "auth:refresh:F.forged", "auth:refresh:F.2", TTL, null);
+
+        assertThat(rotation.status()).isEqualTo(TokenStore.Rotation.Status.INVALID);
+        assertThat(tokenStore.get(FAMILY)).isEqualTo("auth:refresh:F.1");
+    }
+
+    @Test
+    void undoneRotationCanBeRetried() {
+        startFamily();
+        tokenStore.rotate(FAMILY, "auth:refresh:F.1", "auth:refresh:F.2", TTL, null);
+        tokenStore.rotate(FAMILY, "auth:refresh:F.2", "auth:refresh:F.1", TTL, null);
+
+        TokenStore.Rotation rotation = tokenStore.rotate(FAMILY, "auth:refresh:F.1", "auth:refresh:F.3", TTL, null);
+
+        assertThat(rotation.status()).isEqualTo(TokenStore.Rotation.Status.ROTATED);
+        assertThat(tokenStore.get(FAMILY)).isEqualTo("auth:refresh:F.3");
+    }
+
+    @Test
+    void renewExtendsExpiry() throws InterruptedException {
+        tokenStore.put("auth:token:a", "{}", Duration.ofMillis(100), 7L);
+        tokenStore.renew(Map.of("auth:token:a", 7L), TTL, "auth:user-sessions:");
+        Thread.sleep(200);
+
+        assertThat(tokenStore.get("auth:token:a")).isEqualTo("{}");
+    }
+
+    @Test
+    void expiredRecordIsNotReturned() throws InterruptedException {
+        tokenStore.put("auth:token:a", "{}", Duration.ofMillis(50), 7L);
+        Thread.sleep(100);
+
+        assertThat(tokenStore.get("auth:token:a")).isNull();
+    }
+
+    private void startFamily() {
+        tokenStore.put("auth:refresh:F.1", "{\"userId\":7}", TTL, 7L);
+        tokenStore.putSession(FAMILY, "auth:refresh:F.1", TTL, 7L, "auth:user-refresh-families:7", 5, true);
+    }
+}
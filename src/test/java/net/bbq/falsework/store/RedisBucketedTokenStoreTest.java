@@ -0,0 +1,129 @@
+package net.bbq.falsework.store;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分桶存储的脚本在 Redis 内计算桶和字段，Java 侧的 locate 必须与之逐字节一致，否则脚本写入的记录读不到。
+ * 字段级 TTL 需要 Redis 7.4+，没有 Docker 时跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisBucketedTokenStoreTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7.4-alpine").withExposedPorts(6379);
+
+    private static final String RECORD = "{\"userId\":7,\"username\":\"alice\",\"role\":\"USER\"}";
+
+    private static RedissonClient redissonClient;
+    private static RedisBucketedTokenStore tokenStore;
+
+    @BeforeAll
+    static void setUpStore() {
+        Config config = new Config();
+        config.useSingleServer().setAddress("redis://" + REDIS.getHost() + ":" + REDIS.getMappedPort(6379));
+        redissonClient = Redisson.create(config);
+
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 5);
+        ReflectionTestUtils.setField(circuitBreaker, "openDuration", 10_000L);
+        circuitBreaker.init();
+        tokenStore = new RedisBucketedTokenStore(redissonClient, circuitBreaker);
+        ReflectionTestUtils.setField(tokenStore, "readTimeout", 2000L);
+        ReflectionTestUtils.setField(tokenStore, "writeTimeout", 2000L);
+    }
+
+    @AfterAll
+    static void tearDownStore() {
+        redissonClient.shutdown();
+    }
+
+    @BeforeEach
+    void flush() {
+        redissonClient.getKeys().flushdb();
+    }
+
+    @Test
+    void scriptWritesWhereJavaLocateReads() {
+        List<String> keys = IntStream.range(0, 200).mapToObj(i -> "auth:token:key-" + i + "-é").toList();
+        keys.forEach(key -> tokenStore.put(key, RECORD, Duration.ofMinutes(5), null));
+
+        for (String key : keys) {
+            RedisBucketedTokenStore.Location location = RedisBucketedTokenStore.locate(key);
+            byte[] stored = redissonClient.<byte[], byte[]>getMap(location.bucket(), ByteArrayCodec.INSTANCE).get(location.field());
+            assertThat(stored).as(key).isEqualTo(RECORD.getBytes(StandardCharsets.UTF_8));
+        }
+        assertThat(tokenStore.getAll(keys)).containsOnly(RECORD);
+    }
+
+    @Test
+    void userIndexMemberIsBucketSuffixAndField() {
+        String key = "auth:token:abc";
+        tokenStore.put(key, RECORD, Duration.ofMinutes(5), 7L);
+
+        RedisBucketedTokenStore.Location location = RedisBucketedTokenStore.locate(key);
+        byte[] suffix = location.bucket().substring("auth:tb:".length()).getBytes(StandardCharsets.US_ASCII);
+        byte[] expected = Arrays.copyOf(suffix, suffix.length + location.field().length);
+        System.arraycopy(location.field(), 0, expected, suffix.length, location.field().length);
+
+        assertThat(redissonClient.<byte[]>getScoredSortedSet("auth:user-tokens:7", ByteArrayCodec.INSTANCE).readAll())
+                .singleElement().isEqualTo(expected);
+        assertThat(tokenStore.revokeByUser(7L)).isEqualTo(1);
+        assertThat(tokenStore.get(key)).isNull();
+    }
+
+    @Test
+    void expiredIndexMembersArePrunedOnWrite() throws InterruptedException {
+        tokenStore.put("auth:token:short", RECORD, Duration.ofMillis(100), 7L);
+        Thread.sleep(200);
+        tokenStore.put("auth:token:long", RECORD, Duration.ofMinutes(5), 7L);
+
+        assertThat(redissonClient.getScoredSortedSet("auth:user-tokens:7", ByteArrayCodec.INSTANCE).size()).isEqualTo(1);
+    }
+
+    @Test
+    void renewKeepsIndexMemberAlive() throws InterruptedException {
+        tokenStore.put("auth:token:renewed", RECORD, Duration.ofMillis(300), 7L);
+        tokenStore.renew(Map.of("auth:token:renewed", 7L), Duration.ofMinutes(5), "auth:user-sessions:");
+        Thread.sleep(400);
+        tokenStore.put("auth:token:other", RECORD, Duration.ofMinutes(5), 7L);
+
+        assertThat(tokenStore.get("auth:token:renewed")).isEqualTo(RECORD);
+        assertThat(redissonClient.getScoredSortedSet("auth:user-tokens:7", ByteArrayCodec.INSTANCE).size()).isEqualTo(2);
+    }
+
+    @Test
+    void rotateExtendsSessionIndex() {
+        Duration ttl = Duration.ofMinutes(5);
+        tokenStore.put("auth:refresh:F.1", RECORD, Duration.ofSeconds(10), 7L);
+        tokenStore.putSession("auth:refresh-family:F", "auth:refresh:F.1", Duration.ofSeconds(10), 7L,
+                "auth:user-refresh-families:7", 5, true);
+
+        TokenStore.Rotation rotation = tokenStore.rotate("auth:refresh-family:F", "auth:refresh:F.1", "auth:refresh:F.2",
+                ttl, "auth:user-refresh-families:");
+
+        assertThat(rotation.status()).isEqualTo(TokenStore.Rotation.Status.ROTATED);
+        assertThat(redissonClient.getKeys().remainTimeToLive("auth:user-refresh-families:7")).isGreaterThan(10_000L);
+        assertThat(redissonClient.getScoredSortedSet("auth:user-tokens:7", ByteArrayCodec.INSTANCE).size()).isEqualTo(2);
+    }
+}
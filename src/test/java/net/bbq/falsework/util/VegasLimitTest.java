@@ -0,0 +1,90 @@
+package net.bbq.falsework.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VegasLimitTest {
+
+    private static final long RTT = 1_000_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectsBeyondLimitUntilReleased() {
+        VegasLimit limit = new VegasLimit("test", 2, 1, 10, meterRegistry);
+
+        assertThat(limit.tryAcquire()).isEqualTo(1);
+        assertThat(limit.tryAcquire()).isEqualTo(2);
+        assertThat(limit.tryAcquire()).isEqualTo(-1);
+        assertThat(meterRegistry.counter("concurrency.rejected", "name", "test").count()).isEqualTo(1);
+
+        limit.release();
+        assertThat(limit.getInFlight()).isEqualTo(1);
+        assertThat(limit.tryAcquire()).isEqualTo(2);
+    }
+
+    @Test
+    void growsWhenSaturatedWithoutQueueing() {
+        VegasLimit limit = new VegasLimit("test", 20, 1, 100, meterRegistry);
+
+        for (int i = 0; i < 20; i++) {
+            sample(limit, RTT, limit.getLimit(), false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    void holdsWhenUnderused() {
+        VegasLimit limit = new VegasLimit("test", 20, 1, 100, meterRegistry);
+
+        for (int i = 0; i < 20; i++) {
+            sample(limit, RTT, 1, false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void shrinksWhenLatencyShowsQueueing() {
+        VegasLimit limit = new VegasLimit("test", 20, 1, 100, meterRegistry);
+        sample(limit, RTT, 20, false);
+
+        for (int i = 0; i < 10; i++) {
+            sample(limit, 10 * RTT, limit.getLimit(), false);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void dropsShrinkDownToMinimum() {
+        VegasLimit limit = new VegasLimit("test", 20, 5, 100, meterRegistry);
+        sample(limit, RTT, 1, false);
+
+        for (int i = 0; i < 30; i++) {
+            sample(limit, RTT, 1, true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void releaseWithoutSampleKeepsLimit() {
+        VegasLimit limit = new VegasLimit("test", 20, 5, 100, meterRegistry);
+        sample(limit, RTT, 1, false);
+
+        limit.tryAcquire();
+        limit.release();
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    private static void sample(VegasLimit limit, long rtt, int inFlightAtStart, boolean dropped) {
+        assertThat(limit.tryAcquire()).isPositive();
+        limit.release(rtt, inFlightAtStart, dropped);
+    }
+}